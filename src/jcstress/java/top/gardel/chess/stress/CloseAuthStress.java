@@ -0,0 +1,62 @@
+package top.gardel.chess.stress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+
+/**
+ * 已登录并创建了对局的连接重新登录的同时, 连接关闭回调在另一个线程执行
+ * <p>
+ * 关闭执行者只调用关闭回调 {@link App#onChannelClosed}, 只读取连接的 id, 不会与登录执行者同时操作连接。
+ * 结果: 玩家表中的玩家数, 对局表中的对局数, 旧玩家仍持有的对局数
+ */
+@JCStressTest
+@Outcome(id = "0, 0, 0", expect = ACCEPTABLE, desc = "先登录后关闭, 或关闭回调删除了新玩家")
+@Outcome(id = "1, 0, 0", expect = ACCEPTABLE,
+    desc = "先关闭后登录: 关闭回调先执行, 新登录的玩家留在表中。服务器中读取与关闭回调都在连接的事件循环上, "
+        + "关闭之后不会再收到登录")
+@Outcome(expect = FORBIDDEN, desc = "对局泄漏、旧玩家未退出对局或其他结果")
+@State
+public class CloseAuthStress {
+    private final Map<ChannelId, Player> players = new ConcurrentHashMap<>();
+    private final Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+    private final App app = GameOps.app(players, competitions);
+    private final Channel channel = GameOps.channel();
+    private final Player old;
+
+    public CloseAuthStress() {
+        GameOps.auth(app, channel);
+        old = players.get(channel.id());
+        GameOps.create(app, old, 1);
+    }
+
+    @Actor
+    public void auth() {
+        GameOps.auth(app, channel);
+    }
+
+    @Actor
+    public void close() {
+        app.onChannelClosed(channel);
+    }
+
+    @Arbiter
+    public void arbiter(III_Result r) {
+        r.r1 = players.size();
+        r.r2 = competitions.size();
+        r.r3 = old.getCompetitionCount();
+    }
+}
@@ -0,0 +1,64 @@
+package top.gardel.chess.stress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import io.netty.channel.ChannelId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.IIII_Result;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+
+/**
+ * 开局时双方同时落子 (各自所在的事件循环)
+ * <p>
+ * 开局时 lastPut 为空, 任一方都可以先走, 所以两步都会成功。
+ * 结果: A 的棋子是否在棋盘上, B 的棋子是否在棋盘上, 棋盘上的棋子数, 对局的落子序号
+ */
+@JCStressTest
+@Outcome(id = "1, 1, 2, 2", expect = ACCEPTABLE, desc = "两步先后落下 (任一顺序), 序号各加一")
+@Outcome(id = "1, 1, 2, 1", expect = ACCEPTABLE_INTERESTING,
+    desc = "已知竞争: 两步都落下但序号只加了一次, 两步共用同一序号, 增量同步会丢一步。"
+        + "sequence++ 不是原子操作, 对局状态改为限定在单个事件循环后应改为 FORBIDDEN")
+@Outcome(expect = FORBIDDEN, desc = "丢失棋子或其他结果")
+@State
+public class ConcurrentPutStress {
+    private final Map<ChannelId, Player> players = new ConcurrentHashMap<>();
+    private final Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+    private final App app = GameOps.app(players, competitions);
+    private final Player playerA = GameOps.player(app, players);
+    private final Player playerB = GameOps.player(app, players);
+    private final Competition competition;
+
+    public ConcurrentPutStress() {
+        GameOps.create(app, playerA, 1);
+        GameOps.join(app, playerB, 1);
+        competition = competitions.get(1);
+    }
+
+    @Actor
+    public void putA() {
+        GameOps.put(app, playerA, 1, 1, 1);
+    }
+
+    @Actor
+    public void putB() {
+        GameOps.put(app, playerB, 1, 2, 2);
+    }
+
+    @Arbiter
+    public void arbiter(IIII_Result r) {
+        r.r1 = competition.hasChess(1, 1) ? 1 : 0;
+        r.r2 = competition.hasChess(2, 2) ? 1 : 0;
+        r.r3 = GameOps.stones(competition);
+        r.r4 = (int) competition.getSequence();
+    }
+}
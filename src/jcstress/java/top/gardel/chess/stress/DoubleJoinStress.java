@@ -0,0 +1,60 @@
+package top.gardel.chess.stress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import io.netty.channel.ChannelId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+
+/**
+ * 两名玩家同时加入同一个等待中的对局
+ * <p>
+ * 结果: 两名玩家各自是否加入成功, 最终持有该对局的玩家数
+ */
+@JCStressTest
+@Outcome(id = {"1, 0, 1", "0, 1, 1"}, expect = ACCEPTABLE, desc = "只有一名玩家入座")
+@Outcome(id = "1, 1, 2", expect = ACCEPTABLE_INTERESTING,
+    desc = "已知竞争: 两人都通过了空座检查并入座, 对局只记录后写入的一人。"
+        + "检查与入座之间没有同步, 对局状态改为限定在单个事件循环后应改为 FORBIDDEN")
+@Outcome(expect = FORBIDDEN, desc = "其他结果")
+@State
+public class DoubleJoinStress {
+    private final Map<ChannelId, Player> players = new ConcurrentHashMap<>();
+    private final Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+    private final App app = GameOps.app(players, competitions);
+    private final Player first = GameOps.player(app, players);
+    private final Player second = GameOps.player(app, players);
+
+    public DoubleJoinStress() {
+        GameOps.create(app, GameOps.player(app, players), 1);
+    }
+
+    @Actor
+    public void joinFirst(III_Result r) {
+        GameOps.join(app, first, 1);
+        // 另一个执行者不会让 first 离开对局, 加入后立即读取即为加入结果
+        r.r1 = first.getCompetition(1) != null ? 1 : 0;
+    }
+
+    @Actor
+    public void joinSecond(III_Result r) {
+        GameOps.join(app, second, 1);
+        r.r2 = second.getCompetition(1) != null ? 1 : 0;
+    }
+
+    @Arbiter
+    public void arbiter(III_Result r) {
+        r.r3 = (first.getCompetition(1) != null ? 1 : 0) + (second.getCompetition(1) != null ? 1 : 0);
+    }
+}
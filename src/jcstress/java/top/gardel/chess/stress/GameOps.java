@@ -0,0 +1,135 @@
+package top.gardel.chess.stress;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+import top.gardel.chess.config.ServerConfig;
+import top.gardel.chess.event.AuthEvent;
+import top.gardel.chess.event.CompetitionCreateEvent;
+import top.gardel.chess.event.CompetitionJoinEvent;
+import top.gardel.chess.event.CompetitionLeaveEvent;
+import top.gardel.chess.event.CompetitionPutEvent;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.proto.AuthInfo;
+import top.gardel.chess.proto.CompetitionOperation;
+import top.gardel.chess.proto.PutChess;
+
+/**
+ * 在任意线程上调用 {@link App} 的真实回调
+ * <p>
+ * 每个测试状态用 {@link App#App(Map, Map, ServerConfig, io.netty.util.Timer, EventLogger)} 构造自己的 App,
+ * 不启动服务器。每个连接注册到自己的事件循环上并丢弃写出: 与服务器中一样, 其他线程 (对手的回调) 写入时
+ * 由该连接的事件循环执行, 不会有两个执行者线程同时进入同一个连接
+ */
+final class GameOps {
+    private static final ServerConfig CONFIG = ServerConfig.defaults();
+    private static final EventLogger EVENT_LOGGER;
+    private static final EventLoopGroup LOOPS = new DefaultEventLoopGroup(2, new DefaultThreadFactory("stress-loop", true));
+    private static final ChannelHandler DISCARD = new Discard();
+
+    static {
+        Logger logger = Logger.getLogger("stress");
+        logger.setLevel(Level.OFF);
+        logger.setUseParentHandlers(false);
+        EVENT_LOGGER = new EventLogger(logger, 1024);
+    }
+
+    private GameOps() {
+    }
+
+    /**
+     * 丢弃所有写出
+     */
+    @ChannelHandler.Sharable
+    private static final class Discard extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            ReferenceCountUtil.release(msg);
+            promise.trySuccess();
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+        }
+    }
+
+    static App app(Map<ChannelId, Player> players, Map<Integer, Competition> competitions) {
+        return new App(players, competitions, CONFIG, null, EVENT_LOGGER);
+    }
+
+    static Channel channel() {
+        Channel channel = new LocalChannel();
+        channel.pipeline().addLast(DISCARD);
+        LOOPS.register(channel).syncUninterruptibly();
+        return channel;
+    }
+
+    /**
+     * 在新连接上登录
+     *
+     * @return 登录后的玩家
+     */
+    static Player player(App app, Map<ChannelId, Player> players) {
+        Channel channel = channel();
+        auth(app, channel);
+        return players.get(channel.id());
+    }
+
+    static void auth(App app, Channel channel) {
+        app.onAuth(new AuthEvent(channel, null, AuthInfo.newBuilder()
+            .setUuid(UUID.randomUUID().toString())
+            .build()));
+    }
+
+    private static CompetitionOperation operation(int id, CompetitionOperation.Operation operation) {
+        return CompetitionOperation.newBuilder().setId(id).setOperation(operation).build();
+    }
+
+    static void create(App app, Player player, int id) {
+        app.onCompetitionCreate(new CompetitionCreateEvent(player.getChannel(), player,
+            operation(id, CompetitionOperation.Operation.Create)));
+    }
+
+    static void join(App app, Player player, int id) {
+        app.onCompetitionJoin(new CompetitionJoinEvent(player.getChannel(), player,
+            operation(id, CompetitionOperation.Operation.Join)));
+    }
+
+    static void leave(App app, Player player, int id) {
+        app.onCompetitionLeave(new CompetitionLeaveEvent(player.getChannel(), player,
+            operation(id, CompetitionOperation.Operation.Leave)));
+    }
+
+    static void put(App app, Player player, int id, int x, int y) {
+        app.onCompetitionPut(new CompetitionPutEvent(player.getChannel(), player,
+            operation(id, CompetitionOperation.Operation.Put).toBuilder()
+                .setPos(PutChess.newBuilder().setX(x).setY(y))
+                .build()));
+    }
+
+    /**
+     * @return 棋盘上的棋子数
+     */
+    static int stones(Competition competition) {
+        int stones = 0;
+        for (int x = 1; x <= 3; x++)
+            for (int y = 1; y <= 3; y++)
+                if (competition.hasChess(x, y)) stones++;
+        return stones;
+    }
+}
@@ -0,0 +1,62 @@
+package top.gardel.chess.stress;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import io.netty.channel.ChannelId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+
+/**
+ * 玩家 B 加入对局的同时玩家 A 离开 (对局被删除)
+ * <p>
+ * 结果: B 最终是否仍持有该对局, 对局是否仍在对局表中, 对局上是否记录着玩家 B
+ */
+@JCStressTest
+@Outcome(id = "0, 0, 1", expect = ACCEPTABLE, desc = "先加入后离开, A 离开时一并请出 B")
+@Outcome(id = "0, 0, 0", expect = ACCEPTABLE, desc = "先离开后加入, B 加入时对局已不存在")
+@Outcome(id = "1, 0, 1", expect = ACCEPTABLE_INTERESTING,
+    desc = "已知竞争: B 在 A 删除对局之后才入座, 对局泄漏在 B 上。加入与离开之间没有同步, "
+        + "对局状态改为限定在单个事件循环后应改为 FORBIDDEN")
+@Outcome(expect = FORBIDDEN, desc = "其他结果")
+@State
+public class JoinLeaveStress {
+    private final Map<ChannelId, Player> players = new ConcurrentHashMap<>();
+    private final Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+    private final App app = GameOps.app(players, competitions);
+    private final Player playerA = GameOps.player(app, players);
+    private final Player playerB = GameOps.player(app, players);
+    private final Competition competition;
+
+    public JoinLeaveStress() {
+        GameOps.create(app, playerA, 1);
+        competition = competitions.get(1);
+    }
+
+    @Actor
+    public void join() {
+        GameOps.join(app, playerB, 1);
+    }
+
+    @Actor
+    public void leave() {
+        GameOps.leave(app, playerA, 1);
+    }
+
+    @Arbiter
+    public void arbiter(III_Result r) {
+        r.r1 = playerB.getCompetition(1) != null ? 1 : 0;
+        r.r2 = competitions.containsKey(1) ? 1 : 0;
+        r.r3 = competition.hasPlayerB() ? 1 : 0;
+    }
+}
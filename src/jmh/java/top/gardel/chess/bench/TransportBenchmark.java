@@ -0,0 +1,137 @@
+package top.gardel.chess.bench;
+
+import com.google.protobuf.Any;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import top.gardel.chess.App;
+import top.gardel.chess.Server;
+import top.gardel.chess.codec.ProtobufFrameDecoder;
+import top.gardel.chess.codec.ProtobufFrameEncoder;
+import top.gardel.chess.proto.Request;
+import top.gardel.chess.proto.Response;
+import top.gardel.chess.proto.Sync;
+
+/**
+ * 对比 TCP 回环与 Unix 域套接字的往返延迟和流水线吞吐
+ * <p>
+ * 在同一进程中启动服务器 (同时监听两者), 客户端发送未登录的 Sync, 服务端回复一条错误,
+ * 相当于一次最短的请求处理。需要 Linux epoll
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark {
+    private static final int PIPELINE_DEPTH = 64;
+    private static final int PORT = 15544;
+
+    @Param({"tcp", "unix"})
+    public String transport;
+
+    private Path socketPath;
+    private EventLoopGroup group;
+    private Channel channel;
+    private final Semaphore responses = new Semaphore(0);
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        socketPath = Files.createTempDirectory("chess-bench").resolve("chess.sock");
+        Thread serverThread = new Thread(() -> {
+            try {
+                App.main(new String[]{"--port=" + PORT, "--unix.path=" + socketPath});
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, "chess-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (Server.getInstance() == null || !Server.getInstance().isRunning()) {
+            if (System.nanoTime() > deadline) throw new IllegalStateException("server did not start");
+            Thread.sleep(10);
+        }
+
+        boolean unix = transport.equals("unix");
+        SocketAddress address = unix
+            ? new DomainSocketAddress(socketPath.toString())
+            : new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT);
+        group = new EpollEventLoopGroup(1);
+        channel = new Bootstrap()
+            .group(group)
+            .channel(unix ? EpollDomainSocketChannel.class : EpollSocketChannel.class)
+            .handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ChannelPipeline p = ch.pipeline();
+                    p.addLast(new ProtobufFrameDecoder<>(Response.parser()));
+                    p.addLast(new ProtobufFrameEncoder());
+                    p.addLast(new SimpleChannelInboundHandler<Response>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, Response msg) {
+                            responses.release();
+                        }
+                    });
+                }
+            })
+            .connect(address).sync().channel();
+        request = Request.newBuilder().setBody(Any.pack(Sync.getDefaultInstance())).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        group.shutdownGracefully().sync();
+        Server.getInstance().stop();
+        Files.deleteIfExists(socketPath);
+        Files.deleteIfExists(socketPath.getParent());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void roundTrip() throws InterruptedException {
+        channel.writeAndFlush(request);
+        responses.acquire();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public void pipelined() throws InterruptedException {
+        for (int i = 0; i < PIPELINE_DEPTH; i++) channel.write(request);
+        channel.flush();
+        responses.acquire(PIPELINE_DEPTH);
+    }
+}
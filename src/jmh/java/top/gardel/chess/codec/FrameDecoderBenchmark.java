@@ -0,0 +1,79 @@
+package top.gardel.chess.codec;
+
+import com.google.protobuf.Any;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import top.gardel.chess.proto.CompetitionOperation;
+import top.gardel.chess.proto.PutChess;
+import top.gardel.chess.proto.Request;
+
+/**
+ * 对比 ProtobufVarint32FrameDecoder + ProtobufDecoder 与 {@link ProtobufFrameDecoder} 的解码开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameDecoderBenchmark {
+    private ByteBuf frame;
+    private EmbeddedChannel stockChain;
+    private EmbeddedChannel combined;
+
+    @Setup
+    public void setup() {
+        Request request = Request.newBuilder()
+            .setBody(Any.pack(CompetitionOperation.newBuilder()
+                .setId(1234)
+                .setOperation(CompetitionOperation.Operation.Put)
+                .setPos(PutChess.newBuilder().setX(2).setY(3))
+                .build()))
+            .build();
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtobufFrameEncoder());
+        encoder.writeOutbound(request);
+        ByteBuf encoded = encoder.readOutbound();
+        frame = PooledByteBufAllocator.DEFAULT.directBuffer(encoded.readableBytes()).writeBytes(encoded);
+        encoded.release();
+        encoder.finishAndReleaseAll();
+
+        stockChain = new EmbeddedChannel(
+            new ProtobufVarint32FrameDecoder(),
+            new ProtobufDecoder(Request.getDefaultInstance()));
+        combined = new EmbeddedChannel(new ProtobufFrameDecoder<>(Request.parser()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        stockChain.finishAndReleaseAll();
+        combined.finishAndReleaseAll();
+        frame.release();
+    }
+
+    @Benchmark
+    public Object stockChain() {
+        stockChain.writeInbound(frame.retainedDuplicate());
+        return stockChain.readInbound();
+    }
+
+    @Benchmark
+    public Object combined() {
+        combined.writeInbound(frame.retainedDuplicate());
+        return combined.readInbound();
+    }
+}
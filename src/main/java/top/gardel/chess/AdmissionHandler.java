@@ -0,0 +1,134 @@
+package top.gardel.chess;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接准入控制
+ * <p>
+ * 挂在服务端 channel 上，在新连接注册到工作线程之前依次检查接受速率 (令牌桶)、
+ * 总连接数与单个 IP 的连接数，超出限制的连接直接关闭，不会创建 {@link ServerHandler},
+ * 重连风暴时工作线程仍优先服务进行中的对局。各项限制为 0 时不检查
+ */
+@ChannelHandler.Sharable
+public class AdmissionHandler extends ChannelInboundHandlerAdapter {
+    private final int maxConnections;
+    private final int maxPerAddress;
+    private final double acceptRate;
+    private final double acceptBurst;
+    private final AtomicInteger connections = new AtomicInteger();
+    // 计数只在 compute / computeIfPresent 内读写, 查找与增减是同一个原子操作
+    private final Map<InetAddress, Integer> perAddress = new ConcurrentHashMap<>();
+    private final LongAdder rejectedByRate = new LongAdder();
+    private final LongAdder rejectedByTotal = new LongAdder();
+    private final LongAdder rejectedByAddress = new LongAdder();
+    // 令牌桶只在服务端 channel 的事件循环上访问
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param maxConnections 最大连接数
+     * @param maxPerAddress  单个 IP 的最大连接数
+     * @param acceptRate     每秒接受的连接数
+     * @param acceptBurst    令牌桶容量, 允许的突发连接数
+     */
+    public AdmissionHandler(int maxConnections, int maxPerAddress, int acceptRate, int acceptBurst) {
+        this.maxConnections = maxConnections;
+        this.maxPerAddress = maxPerAddress;
+        this.acceptRate = acceptRate;
+        this.acceptBurst = Math.max(acceptBurst, 1);
+        this.tokens = this.acceptBurst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Channel && !admit((Channel) msg)) {
+            ((Channel) msg).unsafe().closeForcibly();
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    private boolean admit(Channel child) {
+        if (acceptRate > 0 && !tryAcquire()) {
+            rejectedByRate.increment();
+            return false;
+        }
+        if (maxConnections > 0 && connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejectedByTotal.increment();
+            return false;
+        }
+        InetAddress address = addressOf(child);
+        if (maxPerAddress > 0 && address != null) {
+            boolean[] full = new boolean[1];
+            perAddress.compute(address, (k, count) -> {
+                int current = count == null ? 0 : count;
+                if (current >= maxPerAddress) {
+                    full[0] = true;
+                    return count;
+                }
+                return current + 1;
+            });
+            if (full[0]) {
+                if (maxConnections > 0) connections.decrementAndGet();
+                rejectedByAddress.increment();
+                return false;
+            }
+        }
+        child.closeFuture().addListener((ChannelFuture future) -> {
+            if (maxConnections > 0) connections.decrementAndGet();
+            if (maxPerAddress > 0 && address != null) release(address);
+        });
+        return true;
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(acceptBurst, tokens + (now - lastRefill) * acceptRate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    private void release(InetAddress address) {
+        perAddress.computeIfPresent(address, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private static InetAddress addressOf(Channel channel) {
+        SocketAddress address = channel.remoteAddress();
+        return address instanceof InetSocketAddress ? ((InetSocketAddress) address).getAddress() : null;
+    }
+
+    /**
+     * @return 当前连接数, 未限制总连接数时不统计
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public long getRejectedByRate() {
+        return rejectedByRate.sum();
+    }
+
+    public long getRejectedByTotal() {
+        return rejectedByTotal.sum();
+    }
+
+    public long getRejectedByAddress() {
+        return rejectedByAddress.sum();
+    }
+}
@@ -1,10 +1,16 @@
 package top.gardel.chess;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import io.netty.util.Timer;
+import java.io.IOException;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.logging.Logger;
+import java.util.function.Consumer;
+import top.gardel.chess.config.ServerConfig;
 import top.gardel.chess.event.AuthEvent;
 import top.gardel.chess.event.CompetitionCreateEvent;
+import top.gardel.chess.event.CompetitionEvent;
 import top.gardel.chess.event.CompetitionJoinEvent;
 import top.gardel.chess.event.CompetitionLeaveEvent;
 import top.gardel.chess.event.CompetitionPutEvent;
@@ -12,13 +18,19 @@ import top.gardel.chess.event.CompetitionResetEvent;
 import top.gardel.chess.event.EventHandler;
 import top.gardel.chess.event.GetStatisticsEvent;
 import top.gardel.chess.event.SyncEvent;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.log.EventType;
 import top.gardel.chess.proto.CompetitionOperation;
 import top.gardel.chess.proto.Response;
+import top.gardel.chess.proto.TimeControl;
 
 public class App {
     private static App INSTANCE;
-    private final Server server;
-    private final Logger logger = Logger.getLogger("App");
+    private final Map<ChannelId, Player> players;
+    private final Map<Integer, Competition> competitions; // <对局号码, 对局>
+    private final ServerConfig config;
+    private final Timer timer;
+    private final EventLogger eventLogger;
 
     /**
      * 启动服务器
@@ -26,15 +38,36 @@ public class App {
      * @param server 要启动的服务器
      */
     private App(Server server) {
+        this(server.getPlayers(), server.getCompetitions(), server.getConfig(), server.getTimer(),
+            server.getEventLogger());
         synchronized (App.class) {
             if (INSTANCE != null)
                 throw new IllegalStateException("App 已经实例化");
-            this.server = server;
             INSTANCE = this;
+            server.getEventBus().register(this);
             server.run();
         }
     }
 
+    /**
+     * 构造不启动服务器、不注册为全局实例的 App, 各回调直接作用于给定的玩家表与对局表,
+     * 供并发测试在不同线程上驱动真实的状态变更
+     *
+     * @param players      玩家表
+     * @param competitions 对局表
+     * @param config       配置, 用于对局数上限
+     * @param timer        对局计时用的时间轮, 不使用计时的对局可为 null
+     * @param eventLogger  事件日志
+     */
+    public App(Map<ChannelId, Player> players, Map<Integer, Competition> competitions, ServerConfig config,
+               Timer timer, EventLogger eventLogger) {
+        this.players = players;
+        this.competitions = competitions;
+        this.config = config;
+        this.timer = timer;
+        this.eventLogger = eventLogger;
+    }
+
     /**
      * 登录回调
      *
@@ -42,21 +75,17 @@ public class App {
      */
     @EventHandler
     public void onAuth(AuthEvent event) {
-        Player old = server.getPlayers().remove(event.getChannel().id());
+        Player old = players.remove(event.getChannel().id());
         if (old != null) {
-            Competition oldCompetition = old.getCompetition();
-            if (oldCompetition != null && oldCompetition.getPlayerA().equals(old)) {
-                oldCompetition.setPlayerB(null);
-                old.sendFinish();
-                old.sendOperationResponse(CompetitionOperation.Operation.Leave);
-                server.getCompetitions().remove(oldCompetition.getId());
+            for (Competition oldCompetition : old.getCompetitions()) {
+                old.sendOperationResponse(oldCompetition, CompetitionOperation.Operation.Leave);
             }
+            releaseCompetitions(old);
         }
-        String uuid = event.getPlayerUuid();
-        Player player = new Player(uuid == null || uuid.isEmpty() ? null : UUID.fromString(uuid), event.getChannel());
+        Player player = new Player(event.getPlayerUuid(), event.getChannel(), event.isBinaryUuid());
         player.setState(Player.State.FREE);
-        server.getPlayers().put(event.getChannel().id(), player);
-        logger.info(String.format("%s 加入游戏", player.getUuid()));
+        players.put(event.getChannel().id(), player);
+        eventLogger.log(EventType.AUTH, player.getUuid());
         player.sendAuthInfo();
     }
 
@@ -72,15 +101,23 @@ public class App {
     @EventHandler
     public void onCompetitionCreate(CompetitionCreateEvent event) {
         Player player = event.getPlayer();
-        if (player.getState() == Player.State.PLAYING) {
-            event.getChannel().writeAndFlush(Response.newBuilder().setError("已在对局中").build());
+        if (!checkCompetitionLimit(event)) return;
+        int maxCompetitions = config.getMaxCompetitions();
+        if (maxCompetitions > 0 && competitions.size() >= maxCompetitions) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("对局数量已达上限").build());
             return;
         }
         Competition competition = new Competition(event.getCompetitionId(), player);
+        if (event.hasTimeControl() && CompetitionClock.isEnabled(event.getTimeControl()))
+            competition.setClock(new CompetitionClock(competition, event.getTimeControl(), timer,
+                this::onClockExpired));
+        if (competitions.putIfAbsent(competition.getId(), competition) != null) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("对局号码已被占用").build());
+            return;
+        }
         player.joinCompetition(competition);
-        player.sendOperationResponse(CompetitionOperation.Operation.Create);
-        server.getCompetitions().put(competition.getId(), competition);
-        logger.info(String.format("玩家 %s 用数字 %d 创建了对局", player.getUuid(), competition.getId()));
+        player.sendOperationResponse(competition, CompetitionOperation.Operation.Create);
+        eventLogger.log(EventType.CREATE, player.getUuid(), competition.getId());
     }
 
     /**
@@ -91,19 +128,59 @@ public class App {
     @EventHandler
     public void onCompetitionJoin(CompetitionJoinEvent event) {
         Player player = event.getPlayer();
-        if (player.getState() == Player.State.PLAYING) {
+        if (player.getCompetition(event.getCompetitionId()) != null) {
             event.getChannel().writeAndFlush(Response.newBuilder().setError("已在对局中").build());
             return;
         }
-        Competition competition = server.getCompetitions().get(event.getCompetitionId());
+        if (!checkCompetitionLimit(event)) return;
+        Competition competition = competitions.get(event.getCompetitionId());
         if (competition == null) {
             event.getChannel().writeAndFlush(Response.newBuilder().setError("找不到该对局").build());
             return;
         }
+        if (competition.hasPlayerB()) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("对局已满").build());
+            return;
+        }
         player.joinCompetition(competition);
-        player.sendOperationResponse(CompetitionOperation.Operation.Join);
+        player.sendOperationResponse(competition, CompetitionOperation.Operation.Join);
         competition.setPlayerB(player);
-        logger.info(String.format("玩家 %s 用数字 %d 加入了对局", player.getUuid(), competition.getId()));
+        eventLogger.log(EventType.JOIN, player.getUuid(), competition.getId());
+    }
+
+    /**
+     * 由服务端直接创建对局并让两名玩家入座, 用于赛事批量开局。应在玩家 A 的事件循环中调用
+     *
+     * @param id             对局号码
+     * @param playerA        玩家 A
+     * @param playerB        玩家 B
+     * @param timeControl    计时设置, 可为 null
+     * @param finishListener 对局分出结果时的回调, 可为 null
+     * @return 创建的对局, 对局号码已被占用时为 null
+     * @throws IllegalStateException 对局总数或任一玩家参与的对局数已达上限 (与客户端创建、加入对局的限制相同)
+     */
+    public Competition startCompetition(int id, Player playerA, Player playerB, TimeControl timeControl,
+                                        Consumer<Competition> finishListener) {
+        int maxCompetitions = config.getMaxCompetitions();
+        if (maxCompetitions > 0 && competitions.size() >= maxCompetitions)
+            throw new IllegalStateException("对局数量已达上限");
+        int limit = config.getMaxCompetitionsPerPlayer();
+        if (limit > 0 && (playerA.getCompetitionCount() >= limit || playerB.getCompetitionCount() >= limit))
+            throw new IllegalStateException("参与的对局数已达上限");
+        Competition competition = new Competition(id, playerA);
+        if (timeControl != null && CompetitionClock.isEnabled(timeControl))
+            competition.setClock(new CompetitionClock(competition, timeControl, timer,
+                this::onClockExpired));
+        competition.setFinishListener(finishListener);
+        if (competitions.putIfAbsent(id, competition) != null) return null;
+        playerA.joinCompetition(competition);
+        playerA.sendOperationResponse(competition, CompetitionOperation.Operation.Create);
+        eventLogger.log(EventType.CREATE, playerA.getUuid(), id);
+        playerB.joinCompetition(competition);
+        playerB.sendOperationResponse(competition, CompetitionOperation.Operation.Join);
+        competition.setPlayerB(playerB);
+        eventLogger.log(EventType.JOIN, playerB.getUuid(), id);
+        return competition;
     }
 
     /**
@@ -114,30 +191,23 @@ public class App {
     @EventHandler
     public void onCompetitionLeave(CompetitionLeaveEvent event) {
         Player player = event.getPlayer();
-        if (player.getState() != Player.State.PLAYING) {
-            event.getChannel().writeAndFlush(Response.newBuilder().setError("不在对局中").build());
-            return;
-        }
-        Competition competition = server.getCompetitions().get(event.getCompetitionId());
-        if (competition == null) competition = player.getCompetition();
-        if (competition == null) {
-            event.getChannel().writeAndFlush(Response.newBuilder().setError("找不到该对局").build());
-            return;
-        }
-        player.sendFinish().addListener((future) -> {
-            if (future.isSuccess()) player.leaveCompetition();
-        });
+        Competition competition = findCompetition(event);
+        if (competition == null) return;
+        abandon(competition, player);
+        player.sendFinish(competition);
+        player.leaveCompetition(competition);
         if (player.equals(competition.getPlayerB())) competition.setPlayerB(null);
         else if (player.equals(competition.getPlayerA())) {
+            competition.stopClock();
             Optional.ofNullable(competition.getPlayerB())
                 .ifPresent(player1 -> {
-                    player1.sendFinish();
-                    player1.leaveCompetition();
+                    player1.sendFinish(competition);
+                    player1.leaveCompetition(competition);
                 });
-            server.getCompetitions().remove(competition.getId());
-            logger.info(String.format("对局 %d 已删除", competition.getId()));
+            removeCompetition(competition);
+            eventLogger.log(EventType.DELETE, competition.getId());
         }
-        logger.info(String.format("玩家 %s 离开了对局 %d", player.getUuid(), competition.getId()));
+        eventLogger.log(EventType.LEAVE, player.getUuid(), competition.getId());
     }
 
     /**
@@ -148,25 +218,58 @@ public class App {
     @EventHandler
     public void onCompetitionPut(CompetitionPutEvent event) {
         Player player = event.getPlayer();
-        if (player.getState() != Player.State.PLAYING) {
-            event.getChannel().writeAndFlush(Response.newBuilder().setError("不在对局中").build());
-            return;
-        }
-        Competition competition = server.getCompetitions().get(event.getCompetitionId());
-        if (competition == null) {
-            event.getChannel().writeAndFlush(Response.newBuilder().setError("找不到该对局").build());
-            return;
-        }
+        Competition competition = findCompetition(event);
+        if (competition == null) return;
         if (!event.getRequest().hasPos()) throw new IllegalArgumentException("operation does not has pos");
         if (competition.putChess(player, event.getPosX(), event.getPosY())) {
             byte winner = competition.checkWinner();
             if (winner != 0) {
-                competition.getPlayerA().sendFinish();
-                competition.getPlayerB().sendFinish();
+                competition.getPlayerA().sendFinish(competition);
+                competition.getPlayerB().sendFinish(competition);
+                notifyFinished(competition);
             }
         }
     }
 
+    /**
+     * 计时超时回调，判超时的玩家负并通知双方
+     *
+     * @param competition 对局
+     * @param loser       超时的玩家
+     */
+    public void onClockExpired(Competition competition, Player loser) {
+        if (competitions.get(competition.getId()) != competition || !competition.hasPlayerB()) return;
+        if (competition.checkWinner() != 0) return;
+        competition.forfeit(loser);
+        competition.getPlayerA().sendFinish(competition);
+        competition.getPlayerB().sendFinish(competition);
+        eventLogger.log(EventType.TIMEOUT, loser.getUuid(), competition.getId());
+        notifyFinished(competition);
+    }
+
+    /**
+     * 通知对局的结果回调
+     *
+     * @param competition 已分出结果或被强制结束的对局
+     */
+    private void notifyFinished(Competition competition) {
+        Consumer<Competition> listener = competition.getFinishListener();
+        if (listener != null) listener.accept(competition);
+    }
+
+    /**
+     * 需要收集结果的对局中途有玩家离开时, 判离开的玩家负
+     *
+     * @param competition 对局
+     * @param leaver      离开的玩家
+     */
+    private void abandon(Competition competition, Player leaver) {
+        if (competition.getFinishListener() == null || competition.checkWinner() != 0) return;
+        if (!competition.hasPlayerB()) return;
+        competition.forfeit(leaver);
+        notifyFinished(competition);
+    }
+
     /**
      * 同步棋子回调
      *
@@ -175,7 +278,21 @@ public class App {
     @EventHandler
     public void onSync(SyncEvent event) {
         Player player = event.getPlayer();
-        player.syncChess();
+        if (player == null || player.getState() == Player.State.NOT_AUTHED) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("未注册").build());
+            return;
+        }
+        if (!event.getRequest().hasId()) {
+            player.syncChess();
+            return;
+        }
+        Competition competition = player.getCompetition(event.getRequest().getId());
+        if (competition == null) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("不在对局中").build());
+            return;
+        }
+        if (event.getRequest().hasLastSeq()) player.syncChess(competition, event.getRequest().getLastSeq());
+        else player.syncChess(competition);
     }
 
     /**
@@ -185,17 +302,105 @@ public class App {
      */
     @EventHandler
     public void onCompetitionReset(CompetitionResetEvent event) {
-        Player player = event.getPlayer();
-        if (player.getState() != Player.State.PLAYING) {
+        Competition competition = findCompetition(event);
+        if (competition == null) return;
+        competition.reset();
+    }
+
+    /**
+     * 查找玩家参与的对局, 找不到时回复错误
+     *
+     * @param event 对局事件
+     * @return 对局, 玩家未参与该对局时为 null
+     */
+    private Competition findCompetition(CompetitionEvent event) {
+        Competition competition = event.getPlayer().getCompetition(event.getCompetitionId());
+        if (competition == null)
             event.getChannel().writeAndFlush(Response.newBuilder().setError("不在对局中").build());
-            return;
+        return competition;
+    }
+
+    /**
+     * 检查玩家参与的对局数是否已达上限, 已达上限时回复错误
+     *
+     * @param event 对局事件
+     * @return 未达上限返回 true
+     */
+    private boolean checkCompetitionLimit(CompetitionEvent event) {
+        int limit = config.getMaxCompetitionsPerPlayer();
+        if (limit > 0 && event.getPlayer().getCompetitionCount() >= limit) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("参与的对局数已达上限").build());
+            return false;
         }
-        Competition competition = server.getCompetitions().get(event.getCompetitionId());
-        if (competition == null) {
-            event.getChannel().writeAndFlush(Response.newBuilder().setError("找不到该对局").build());
-            return;
+        return true;
+    }
+
+    /**
+     * 连接关闭回调, 从玩家表中删除该连接的玩家并退出其参与的所有对局
+     *
+     * @param channel 已关闭的连接
+     */
+    public void onChannelClosed(Channel channel) {
+        Player player = players.remove(channel.id());
+        if (player != null) releaseCompetitions(player);
+    }
+
+    /**
+     * 玩家下线或重新登录时退出其参与的所有对局: 作为玩家 A 的对局被删除，作为玩家 B 的对局通知对手
+     *
+     * @param player 玩家
+     */
+    public void releaseCompetitions(Player player) {
+        for (Competition competition : player.getCompetitions()) {
+            abandon(competition, player);
+            if (player.equals(competition.getPlayerB())) {
+                player.leaveCompetition(competition);
+                // 通知 A 对手下线
+                competition.setPlayerB(null);
+            } else if (player.equals(competition.getPlayerA())) {
+                // 结束对局
+                closeCompetition(competition);
+            }
         }
-        competition.reset();
+    }
+
+    /**
+     * 强制结束对局，通知对局中的玩家并从对局列表中删除
+     *
+     * @param competition 要结束的对局
+     * @return 对局是否仍在列表中并被删除
+     */
+    public boolean closeCompetition(Competition competition) {
+        if (!removeCompetition(competition)) return false;
+        competition.stopClock();
+        Optional.ofNullable(competition.getPlayerB())
+            .ifPresent(playerB -> {
+                playerB.sendFinish(competition);
+                playerB.leaveCompetition(competition);
+            });
+        Player playerA = competition.getPlayerA();
+        playerA.sendFinish(competition);
+        playerA.leaveCompetition(competition);
+        eventLogger.log(EventType.DELETE, competition.getId());
+        notifyFinished(competition);
+        return true;
+    }
+
+    /**
+     * 按引用从对局表中删除对局。Competition 的 equals 比较的是内容,
+     * 用 {@code remove(key, value)} 可能删掉号码与状态都相同的另一局
+     *
+     * @param competition 对局
+     * @return 表中的正是该对局并已删除时返回 true
+     */
+    private boolean removeCompetition(Competition competition) {
+        boolean[] removed = new boolean[1];
+        competitions.computeIfPresent(competition.getId(), (id, current) -> {
+            if (current != competition) return current;
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
     }
 
     /**
@@ -210,15 +415,20 @@ public class App {
             event.getChannel().writeAndFlush(Response.newBuilder().setError("未注册").build());
             return;
         }
-        player.sendStatistics();
+        if (!event.getRequest().hasId()) {
+            player.sendStatistics();
+            return;
+        }
+        Competition competition = player.getCompetition(event.getRequest().getId());
+        if (competition == null) {
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("不在对局中").build());
+            return;
+        }
+        player.sendStatistics(competition);
     }
 
-    public static void main(String[] args) {
-        int port = 5544;
-        if (args.length > 0) {
-            port = Integer.parseInt(args[0]);
-        }
-        Server server = new Server(port);
+    public static void main(String[] args) throws IOException {
+        Server server = new Server(ServerConfig.parse(args));
         new App(server);
         try {
             server.getServerChannel().closeFuture().sync();
@@ -0,0 +1,60 @@
+package top.gardel.chess;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import java.util.ArrayList;
+import java.util.List;
+import top.gardel.chess.proto.Response;
+
+/**
+ * 处理批量请求时收集本连接的回复
+ * <p>
+ * 位于编码器与 {@link ServerHandler} 之间。收集期间，事件循环线程上写往本连接的 {@link Response}
+ * 不再单独成帧，而是记入当前条目，最终合并为一个 BatchResponse 发送。
+ * 其他线程的写入会被 Netty 排队到批量处理结束之后，不受影响
+ */
+public class BatchCollector extends ChannelOutboundHandlerAdapter {
+    private List<Response> current;
+
+    /**
+     * 开始收集一个条目的回复
+     */
+    void begin() {
+        current = new ArrayList<>(2);
+    }
+
+    /**
+     * 结束收集
+     *
+     * @return 本条目期间写出的回复
+     */
+    List<Response> end() {
+        List<Response> responses = current;
+        current = null;
+        return responses;
+    }
+
+    /**
+     * 在当前条目中记一条回复
+     */
+    void add(Response response) {
+        current.add(response);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (current != null && ctx.executor().inEventLoop()) {
+            if (msg instanceof Response) {
+                current.add((Response) msg);
+                promise.trySuccess();
+                return;
+            } else if (msg instanceof Response.Builder) {
+                current.add(((Response.Builder) msg).build());
+                promise.trySuccess();
+                return;
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+}
@@ -2,9 +2,13 @@ package top.gardel.chess;
 
 import com.google.protobuf.Any;
 import java.util.Objects;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import top.gardel.chess.jfr.CheckWinnerEvent;
+import top.gardel.chess.jfr.PutChessEvent;
 import top.gardel.chess.proto.AuthInfo;
 import top.gardel.chess.proto.CompetitionOperation;
 import top.gardel.chess.proto.Response;
@@ -13,6 +17,11 @@ import top.gardel.chess.proto.Response;
 @Getter
 @Setter
 public class Competition {
+    /**
+     * 保留的落子数, 取 3×3 棋盘一局的最大步数, 两次重置之间的落子都能保存;
+     * 超出记录范围的同步请求仍会退回全量同步, 不依赖这一上限
+     */
+    public static final int HISTORY_SIZE = 9;
     private final int id;
     private final byte[][] chessPlate;
     private final Player playerA;
@@ -22,6 +31,26 @@ public class Competition {
     private int playerBWin;
     private int playerALose;
     private int playerBLose;
+    private byte forfeitWinner;
+    @EqualsAndHashCode.Exclude
+    private volatile long lastActiveTime;
+    @EqualsAndHashCode.Exclude
+    private CompetitionClock clock;
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private long sequence;
+    @EqualsAndHashCode.Exclude
+    @Setter(AccessLevel.NONE)
+    private long resetSequence;
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final int[] history = new int[HISTORY_SIZE];
+    /**
+     * 对局分出结果 (含判负) 时的回调, 由赛事等需要收集结果的调用方设置
+     */
+    @EqualsAndHashCode.Exclude
+    private Consumer<Competition> finishListener;
 
     /**
      * 构造一个对局
@@ -35,6 +64,23 @@ public class Competition {
         chessPlate = new byte[3][3];
         playerB = null;
         playerAWin = playerBWin = playerALose = playerBLose = 0;
+        touch();
+    }
+
+    /**
+     * 记录对局最近一次活动 (落子、加入、重置) 的时间
+     */
+    public void touch() {
+        lastActiveTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取对局空闲时长
+     *
+     * @return 距离最近一次活动的毫秒数
+     */
+    public long getIdleMillis() {
+        return System.currentTimeMillis() - lastActiveTime;
     }
 
     /**
@@ -50,7 +96,7 @@ public class Competition {
                 .setBody(Any.pack(CompetitionOperation.newBuilder()
                     .setId(getId())
                     .setOperation(CompetitionOperation.Operation.Join)
-                    .setPlayerB(AuthInfo.newBuilder().setUuid(playerB.getUuid().toString()).build())
+                    .setPlayerB(playerB.getAuthInfo(playerA.isBinaryUuid()))
                     .build())));
         } else {
             // 玩家 B 退出
@@ -59,10 +105,17 @@ public class Competition {
                 .setBody(Any.pack(CompetitionOperation.newBuilder()
                     .setId(getId())
                     .setOperation(CompetitionOperation.Operation.Leave)
-                    .setPlayerB(AuthInfo.newBuilder().setUuid(this.playerB == null ? "B" : this.playerB.getUuid().toString()).build())
+                    .setPlayerB(this.playerB == null
+                        ? AuthInfo.newBuilder().setUuid("B").build()
+                        : this.playerB.getAuthInfo(playerA.isBinaryUuid()))
                     .build())));
         }
         this.playerB = playerB;
+        touch();
+        if (clock != null) {
+            if (playerB != null) clock.start();
+            else clock.stop();
+        }
     }
 
     /**
@@ -106,6 +159,23 @@ public class Competition {
      * @return 是否成功
      */
     public boolean putChess(Player player, int x, int y) {
+        PutChessEvent event = new PutChessEvent();
+        event.begin();
+        boolean accepted = false;
+        try {
+            accepted = doPutChess(player, x, y);
+        } finally {
+            if (event.shouldCommit()) {
+                event.competitionId = id;
+                event.sequence = sequence;
+                event.accepted = accepted;
+                event.commit();
+            }
+        }
+        return accepted;
+    }
+
+    private boolean doPutChess(Player player, int x, int y) {
         if (hasChess(x, y)) return false;
         Objects.requireNonNull(player);
         if (!hasPlayerB()) return false;
@@ -115,8 +185,15 @@ public class Competition {
         else if (player.equals(playerB)) chessPlate[x - 1][y - 1] = 'B';
         else return false;
         lastPut = player;
-        playerA.sendPutChess(lastPut.equals(playerA), x, y);
-        playerB.sendPutChess(lastPut.equals(playerB), x, y);
+        sequence++;
+        history[(int) (sequence % HISTORY_SIZE)] = x << 16 | y << 8 | chessPlate[x - 1][y - 1];
+        touch();
+        if (clock != null) {
+            if (checkWinner() != 0) clock.stop();
+            else clock.onMove(player);
+        }
+        playerA.sendPutChess(this, lastPut.equals(playerA), x, y);
+        playerB.sendPutChess(this, lastPut.equals(playerB), x, y);
         return true;
     }
 
@@ -142,14 +219,59 @@ public class Competition {
                 lastPut = playerA;
                 break;
         }
+        forfeitWinner = 0;
+        resetSequence = ++sequence;
+        touch();
+        if (clock != null && hasPlayerB()) clock.start();
         if (playerA != null) {
-            playerA.sendOperationResponse(CompetitionOperation.Operation.Reset);
+            playerA.sendOperationResponse(this, CompetitionOperation.Operation.Reset);
         }
         if (playerB != null) {
-            playerB.sendOperationResponse(CompetitionOperation.Operation.Reset);
+            playerB.sendOperationResponse(this, CompetitionOperation.Operation.Reset);
         }
     }
 
+    /**
+     * 获取最近的一步棋
+     *
+     * @param seq 序号, 需晚于最近一次重置、不超过当前序号且仍在最近 {@link #HISTORY_SIZE} 步内
+     * @return 按 {@code x << 16 | y << 8 | 'A'/'B'} 编码的落子
+     */
+    public int getMove(long seq) {
+        if (seq <= resetSequence || seq > sequence || sequence - seq >= HISTORY_SIZE)
+            throw new IllegalArgumentException("move " + seq + " not in history");
+        return history[(int) (seq % HISTORY_SIZE)];
+    }
+
+    /**
+     * 从 {@code lastSeq} 到当前序号之间的落子是否都在记录中, 即其间没有重置且差距不超过 {@link #HISTORY_SIZE}
+     *
+     * @param lastSeq 客户端已收到的最大序号
+     * @return 可以增量同步时返回 true
+     */
+    public boolean canSyncFrom(long lastSeq) {
+        return lastSeq >= resetSequence && lastSeq <= sequence && sequence - lastSeq <= HISTORY_SIZE;
+    }
+
+    /**
+     * 判负，用于超时等非棋盘原因结束对局
+     *
+     * @param loser 判负的玩家
+     */
+    public void forfeit(Player loser) {
+        if (loser.equals(playerA)) forfeitWinner = 'B';
+        else if (loser.equals(playerB)) forfeitWinner = 'A';
+        else throw new IllegalArgumentException("not in competition");
+        stopClock();
+    }
+
+    /**
+     * 停止计时, 对局删除时调用
+     */
+    public void stopClock() {
+        if (clock != null) clock.stop();
+    }
+
     /**
      * 是否已满
      *
@@ -170,7 +292,20 @@ public class Competition {
      * @return 0: 无人获胜, A: A获胜, B: B获胜, N: 无人获胜
      */
     public byte checkWinner() {
+        CheckWinnerEvent event = new CheckWinnerEvent();
+        event.begin();
+        byte winner = findWinner();
+        if (event.shouldCommit()) {
+            event.competitionId = id;
+            event.winner = (char) winner;
+            event.commit();
+        }
+        return winner;
+    }
+
+    private byte findWinner() {
         if (!hasPlayerB()) return 0;
+        if (forfeitWinner != 0) return forfeitWinner;
         for (byte[] bytes : chessPlate) {
             byte lastChess = bytes[0];
             byte connected = 1;
@@ -0,0 +1,139 @@
+package top.gardel.chess;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import top.gardel.chess.proto.TimeControl;
+
+/**
+ * 对局计时器
+ * <p>
+ * 所有对局共用同一个 {@link Timer} (HashedWheelTimer), 每个对局任意时刻最多挂一个超时任务,
+ * 落子时取消并重新登记，开销为 O(1)。超时后在玩家 A 的事件循环上回调
+ */
+public class CompetitionClock implements TimerTask {
+    private final Competition competition;
+    private final TimeControl timeControl;
+    private final Timer timer;
+    private final BiConsumer<Competition, Player> onExpire;
+    private long remainingA;
+    private long remainingB;
+    private long turnStart;
+    private Player onTurn;
+    private Timeout timeout;
+
+    /**
+     * @param competition 所属对局
+     * @param timeControl 计时规则
+     * @param timer       共享的计时轮
+     * @param onExpire    超时回调, 参数为对局与超时的玩家
+     */
+    public CompetitionClock(Competition competition, TimeControl timeControl, Timer timer,
+                            BiConsumer<Competition, Player> onExpire) {
+        this.competition = competition;
+        this.timeControl = timeControl;
+        this.timer = timer;
+        this.onExpire = onExpire;
+    }
+
+    /**
+     * 计时规则是否有效
+     */
+    public static boolean isEnabled(TimeControl timeControl) {
+        return timeControl.getMoveTimeout() > 0 || timeControl.getTotal() > 0;
+    }
+
+    /**
+     * 开始新的一局计时，双方时长重置。尚无人落子时计作下一位应落子玩家的时间，首局为玩家 A
+     */
+    public synchronized void start() {
+        remainingA = remainingB = timeControl.getTotal();
+        Player lastPut = competition.getLastPut();
+        startTurn(lastPut != null && lastPut.equals(competition.getPlayerA())
+            ? competition.getPlayerB()
+            : competition.getPlayerA());
+    }
+
+    /**
+     * 停止计时
+     */
+    public synchronized void stop() {
+        cancel();
+        onTurn = null;
+    }
+
+    /**
+     * 落子后扣除用时并轮到对方
+     * <p>
+     * 用时记在计时中的玩家名下: 对局不限定先手, 开局时对方抢先落子,
+     * 这段时间仍是等待中的一方在计时, 不能算到落子方头上
+     *
+     * @param mover 落子的玩家
+     */
+    public synchronized void onMove(Player mover) {
+        if (onTurn == null) return;
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - turnStart);
+        boolean isA = mover.equals(competition.getPlayerA());
+        if (timeControl.getTotal() > 0) {
+            if (onTurn.equals(competition.getPlayerA())) remainingA -= elapsed;
+            else remainingB -= elapsed;
+            if (isA) remainingA += timeControl.getIncrement();
+            else remainingB += timeControl.getIncrement();
+        }
+        startTurn(isA ? competition.getPlayerB() : competition.getPlayerA());
+    }
+
+    /**
+     * 获取玩家剩余时长
+     *
+     * @return 毫秒, 未限制总时长时为 0
+     */
+    public synchronized long getRemaining(Player player) {
+        long remaining = player.equals(competition.getPlayerA()) ? remainingA : remainingB;
+        if (player.equals(onTurn) && timeControl.getTotal() > 0)
+            remaining -= TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - turnStart);
+        return Math.max(remaining, 0);
+    }
+
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    private void startTurn(Player player) {
+        cancel();
+        onTurn = player;
+        turnStart = System.nanoTime();
+        long delay = Long.MAX_VALUE;
+        if (timeControl.getMoveTimeout() > 0) delay = timeControl.getMoveTimeout();
+        if (timeControl.getTotal() > 0) {
+            long remaining = player.equals(competition.getPlayerA()) ? remainingA : remainingB;
+            delay = Math.min(delay, Math.max(remaining, 0));
+        }
+        if (delay != Long.MAX_VALUE) timeout = timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancel() {
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+
+    @Override
+    public void run(Timeout timeout) {
+        competition.getPlayerA().getChannel().eventLoop().execute(() -> expire(timeout));
+    }
+
+    private void expire(Timeout expired) {
+        Player loser;
+        synchronized (this) {
+            if (expired != timeout || onTurn == null) return; // 已落子或已停止
+            timeout = null;
+            loser = onTurn;
+            onTurn = null;
+        }
+        onExpire.accept(competition, loser);
+    }
+}
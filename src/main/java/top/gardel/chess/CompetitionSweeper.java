@@ -0,0 +1,125 @@
+package top.gardel.chess;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 清理被遗弃的对局
+ * <p>
+ * 在共享的计时轮上分片增量扫描对局列表，每次最多检查 {@code sliceSize} 个对局，
+ * 迭代器跨分片保留 (弱一致), 一轮扫完后等待 {@code intervalMillis} 再开始下一轮。
+ * 等待玩家 B 或已分出胜负后空闲超过 TTL 的对局会在玩家 A 的事件循环上被关闭
+ */
+public class CompetitionSweeper implements TimerTask {
+    private final Map<Integer, Competition> competitions;
+    private final Timer timer;
+    private final Predicate<Competition> evictor;
+    private final long intervalMillis;
+    private final int sliceSize;
+    private final long waitingTtlMillis;
+    private final long finishedTtlMillis;
+    private final LongAdder evictedWaiting = new LongAdder();
+    private final LongAdder evictedFinished = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private Iterator<Competition> cursor;
+    private volatile boolean running;
+
+    /**
+     * @param competitions      对局列表
+     * @param timer             共享的计时轮
+     * @param evictor           关闭对局, 返回是否真正删除
+     * @param intervalMillis    两轮扫描的间隔
+     * @param sliceSize         每个分片检查的对局数
+     * @param waitingTtlMillis  等待玩家 B 的最长时间
+     * @param finishedTtlMillis 分出胜负后无人重置的最长时间
+     */
+    public CompetitionSweeper(Map<Integer, Competition> competitions, Timer timer, Predicate<Competition> evictor,
+                              long intervalMillis, int sliceSize, long waitingTtlMillis, long finishedTtlMillis) {
+        this.competitions = competitions;
+        this.timer = timer;
+        this.evictor = evictor;
+        this.intervalMillis = intervalMillis;
+        this.sliceSize = sliceSize;
+        this.waitingTtlMillis = waitingTtlMillis;
+        this.finishedTtlMillis = finishedTtlMillis;
+    }
+
+    public void start() {
+        running = true;
+        timer.newTimeout(this, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run(Timeout timeout) {
+        if (!running) return;
+        boolean passDone = true;
+        try {
+            passDone = sweepSlice();
+        } finally {
+            if (running) timer.newTimeout(this, passDone ? intervalMillis : 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 检查一个分片
+     *
+     * @return 本轮是否已扫完
+     */
+    boolean sweepSlice() {
+        if (cursor == null) cursor = competitions.values().iterator();
+        for (int i = 0; i < sliceSize && cursor.hasNext(); i++) {
+            Competition competition = cursor.next();
+            if (isExpired(competition)) {
+                competition.getPlayerA().getChannel().eventLoop().execute(() -> evict(competition));
+            }
+        }
+        if (cursor.hasNext()) return false;
+        cursor = null;
+        passes.increment();
+        return true;
+    }
+
+    private void evict(Competition competition) {
+        boolean waiting = !competition.hasPlayerB();
+        if (!isExpired(competition) || !evictor.test(competition)) return;
+        if (waiting) evictedWaiting.increment();
+        else evictedFinished.increment();
+    }
+
+    private boolean isExpired(Competition competition) {
+        long idle = competition.getIdleMillis();
+        if (!competition.hasPlayerB()) return waitingTtlMillis > 0 && idle > waitingTtlMillis;
+        return finishedTtlMillis > 0 && idle > finishedTtlMillis && competition.checkWinner() != 0;
+    }
+
+    /**
+     * @return 因等待玩家 B 超时被清理的对局数
+     */
+    public long getEvictedWaiting() {
+        return evictedWaiting.sum();
+    }
+
+    /**
+     * @return 因结束后无人重置被清理的对局数
+     */
+    public long getEvictedFinished() {
+        return evictedFinished.sum();
+    }
+
+    /**
+     * @return 已完成的扫描轮数
+     */
+    public long getPasses() {
+        return passes.sum();
+    }
+}
@@ -3,8 +3,13 @@ package top.gardel.chess;
 import com.google.protobuf.Any;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import top.gardel.chess.proto.AuthInfo;
@@ -20,7 +25,16 @@ public class Player {
     private final Channel channel;
     private UUID uuid;
     private State state;
-    private Competition competition;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final IntObjectMap<Competition> games = new IntObjectHashMap<>(4);
+    private boolean binaryUuid;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private AuthInfo authInfo;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private AuthInfo binaryAuthInfo;
 
     public Player(UUID uuid, Channel channel) {
         setUuid(uuid);
@@ -28,111 +42,250 @@ public class Player {
         this.channel = channel;
     }
 
+    public Player(UUID uuid, Channel channel, boolean binaryUuid) {
+        this(uuid, channel);
+        this.binaryUuid = binaryUuid;
+    }
+
     public void setUuid(UUID uuid) {
         this.uuid = Objects.requireNonNullElseGet(uuid, UUID::randomUUID);
+        authInfo = AuthInfo.newBuilder()
+            .setUuid(this.uuid.toString())
+            .build();
+        binaryAuthInfo = AuthInfo.newBuilder()
+            .setUuidMost(this.uuid.getMostSignificantBits())
+            .setUuidLeast(this.uuid.getLeastSignificantBits())
+            .setBinaryUuid(true)
+            .build();
+    }
+
+    /**
+     * 获取本玩家的身份信息，按接收方协商的 UUID 格式编码，在设置 UUID 时已缓存
+     *
+     * @param binary 接收方是否使用二进制 UUID
+     * @return 身份信息
+     */
+    public AuthInfo getAuthInfo(boolean binary) {
+        return binary ? binaryAuthInfo : authInfo;
+    }
+
+    /**
+     * 解析登录信息中的 UUID, 二进制形式优先
+     *
+     * @param authInfo 登录信息
+     * @return UUID, 未携带时为 null
+     */
+    public static UUID parseUuid(AuthInfo authInfo) {
+        if (authInfo.getUuidMost() != 0 || authInfo.getUuidLeast() != 0)
+            return new UUID(authInfo.getUuidMost(), authInfo.getUuidLeast());
+        String uuid = authInfo.getUuid();
+        return uuid.isEmpty() ? null : UUID.fromString(uuid);
     }
 
+    /**
+     * 获取玩家状态, 已登录时参与了至少一个对局即为 {@link State#PLAYING}
+     */
+    public State getState() {
+        if (state == State.NOT_AUTHED) return State.NOT_AUTHED;
+        synchronized (games) {
+            return games.isEmpty() ? State.FREE : State.PLAYING;
+        }
+    }
+
+    /**
+     * 加入对局, 一个连接可以同时参与多个对局
+     *
+     * @param competition 对局
+     */
     public void joinCompetition(Competition competition) {
-        if (state != State.FREE) throw new IllegalStateException("Already in a competition.");
-        this.competition = competition;
-        state = State.PLAYING;
+        if (state == State.NOT_AUTHED) throw new IllegalStateException("Not authed.");
+        synchronized (games) {
+            Competition old = games.get(competition.getId());
+            if (old == competition) return;
+            if (old != null) throw new IllegalStateException("Already in a competition.");
+            games.put(competition.getId(), competition);
+        }
+    }
+
+    /**
+     * 离开对局
+     *
+     * @param competition 对局
+     */
+    public void leaveCompetition(Competition competition) {
+        synchronized (games) {
+            if (games.get(competition.getId()) == competition) games.remove(competition.getId());
+        }
+    }
+
+    /**
+     * 获取参与的对局
+     *
+     * @param id 对局号码
+     * @return 对局, 未参与时为 null
+     */
+    public Competition getCompetition(int id) {
+        synchronized (games) {
+            return games.get(id);
+        }
+    }
+
+    /**
+     * 获取参与的所有对局的快照
+     */
+    public List<Competition> getCompetitions() {
+        synchronized (games) {
+            return new ArrayList<>(games.values());
+        }
+    }
+
+    public int getCompetitionCount() {
+        synchronized (games) {
+            return games.size();
+        }
     }
 
-    public void leaveCompetition() {
-        state = State.FREE;
+    private boolean isIn(Competition competition) {
+        synchronized (games) {
+            return games.get(competition.getId()) == competition;
+        }
     }
 
-    public void setCompetition(Competition competition) {
-        // DO NOTHING
+    public ChannelFuture sendPutChess(Competition competition, boolean mine, int x, int y) {
+        return sendPutChess(competition, mine, x, y, competition.getSequence());
     }
 
-    public ChannelFuture sendPutChess(boolean mine, int x, int y) {
-        if (state == State.PLAYING)
+    public ChannelFuture sendPutChess(Competition competition, boolean mine, int x, int y, long seq) {
+        if (isIn(competition))
             return channel.writeAndFlush(Response.newBuilder()
                 .setBody(Any.pack(PutChess.newBuilder()
                     .setMyself(mine)
                     .setX(x)
                     .setY(y)
+                    .setId(competition.getId())
+                    .setSeq(seq)
                     .build())));
         else return channel.newFailedFuture(new IllegalStateException("not in game"));
     }
 
+    /**
+     * 同步所有对局的棋盘
+     */
     public void syncChess() {
-        if (state == State.PLAYING && competition != null) {
+        for (Competition competition : getCompetitions()) syncChess(competition);
+    }
+
+    /**
+     * 全量同步棋盘, 每个棋子都带上对局当前的序号, 客户端之后可从该序号增量同步
+     *
+     * @param competition 对局
+     */
+    public void syncChess(Competition competition) {
+        if (isIn(competition)) {
             int size = competition.getSize();
+            long seq = competition.getSequence();
             boolean i_am_a = equals(competition.getPlayerA());
             for (int i = 1; i <= size; i++) {
                 for (int j = 1; j <= size; j++) {
                     byte c = competition.getChessAt(i, j);
                     if (c != 0) {
-                        sendPutChess(i_am_a ? (c == 'A') : (c == 'B'), i, j);
+                        sendPutChess(competition, i_am_a ? (c == 'A') : (c == 'B'), i, j, seq);
                     }
                 }
             }
         }
     }
 
+    /**
+     * 增量同步棋盘，只补发 {@code lastSeq} 之后的落子;
+     * 其间对局被重置或差距超出记录时先发送 Reset 再全量同步
+     *
+     * @param competition 对局
+     * @param lastSeq     客户端已收到的最大序号
+     */
+    public void syncChess(Competition competition, long lastSeq) {
+        if (!isIn(competition)) return;
+        long seq = competition.getSequence();
+        if (lastSeq == seq) return;
+        if (!competition.canSyncFrom(lastSeq)) {
+            sendOperationResponse(competition, CompetitionOperation.Operation.Reset);
+            syncChess(competition);
+            return;
+        }
+        byte mark = equals(competition.getPlayerA()) ? (byte) 'A' : (byte) 'B';
+        for (long s = lastSeq + 1; s <= seq; s++) {
+            int move = competition.getMove(s);
+            sendPutChess(competition, (byte) move == mark, move >>> 16, (move >>> 8) & 0xff, s);
+        }
+    }
+
     public ChannelFuture sendAuthInfo() {
         if (state == State.NOT_AUTHED)
             return channel.newFailedFuture(new IllegalStateException("not authed"));
         else return channel.writeAndFlush(Response.newBuilder()
-            .setBody(Any.pack(AuthInfo.newBuilder()
-                .setUuid(uuid.toString())
-                .build())));
-    }
-
-    public ChannelFuture sendOperationResponse(CompetitionOperation.Operation operation) {
-        if (competition != null) {
-            var builder = CompetitionOperation.newBuilder()
-                .setId(competition.getId())
-                .setOperation(operation);
-            if (operation == CompetitionOperation.Operation.Join) {
-                builder.setPlayerA(AuthInfo.newBuilder()
-                    .setUuid(competition.getPlayerA().getUuid().toString()));
-            }
-            return channel.writeAndFlush(Response.newBuilder()
-                .setBody(Any.pack(builder.build())));
-        } else return channel.newFailedFuture(new IllegalStateException("competition not found"));
-    }
-
-    public ChannelFuture sendFinish() {
-        if (competition != null) {
-            var builder = CompetitionFinish.newBuilder();
-            byte winner = competition.checkWinner();
-            switch (winner) {
-                case 'A':
-                    builder.setWinner(competition.getPlayerA().getUuid().toString());
-                    break;
-                case 'B':
-                    builder.setWinner(competition.getPlayerB().getUuid().toString());
-                    break;
-                case 'N':
-                    builder.setWinner("N");
-                    break;
-            }
-            return channel.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder.build())));
-        } else return channel.newFailedFuture(new IllegalStateException("competition not found"));
-    }
-
-    public ChannelFuture sendStatistics() {
-        if (competition != null) {
-            var builder = Statistics.newBuilder();
-            var builder2 = Statistics.newBuilder();
-            if (equals(competition.getPlayerA())) {
-                builder.setWinTime(competition.getPlayerAWin())
-                    .setLoseTime(competition.getPlayerALose());
-                channel.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder.setMyself(true).build())));
-                builder2.setWinTime(competition.getPlayerBWin())
-                    .setLoseTime(competition.getPlayerBLose());
-            } else if (equals(competition.getPlayerB())) {
-                builder.setWinTime(competition.getPlayerBWin())
-                    .setLoseTime(competition.getPlayerBLose());
-                channel.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder.setMyself(true).build())));
-                builder2.setWinTime(competition.getPlayerAWin())
-                    .setLoseTime(competition.getPlayerALose());
-            } else return channel.writeAndFlush(Response.newBuilder().setError("未在对局中").build());
-            return channel.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder.setMyself(false).build())));
-        } else return channel.newFailedFuture(new IllegalStateException("competition not found"));
+            .setBody(Any.pack(getAuthInfo(binaryUuid))));
+    }
+
+    public ChannelFuture sendOperationResponse(Competition competition, CompetitionOperation.Operation operation) {
+        var builder = CompetitionOperation.newBuilder()
+            .setId(competition.getId())
+            .setOperation(operation)
+            .setSeq(competition.getSequence());
+        if (operation == CompetitionOperation.Operation.Join) {
+            builder.setPlayerA(competition.getPlayerA().getAuthInfo(binaryUuid));
+        }
+        return channel.writeAndFlush(Response.newBuilder()
+            .setBody(Any.pack(builder.build())));
+    }
+
+    public ChannelFuture sendFinish(Competition competition) {
+        var builder = CompetitionFinish.newBuilder()
+            .setId(competition.getId());
+        byte winner = competition.checkWinner();
+        switch (winner) {
+            case 'A':
+                setWinner(builder, competition.getPlayerA());
+                break;
+            case 'B':
+                setWinner(builder, competition.getPlayerB());
+                break;
+            case 'N':
+                builder.setWinner("N");
+                break;
+        }
+        return channel.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder.build())));
+    }
+
+    private void setWinner(CompetitionFinish.Builder builder, Player winner) {
+        if (binaryUuid) {
+            builder.setWinnerMost(winner.uuid.getMostSignificantBits())
+                .setWinnerLeast(winner.uuid.getLeastSignificantBits());
+        } else builder.setWinner(winner.authInfo.getUuid());
+    }
+
+    /**
+     * 发送所有对局的得分统计
+     */
+    public void sendStatistics() {
+        for (Competition competition : getCompetitions()) sendStatistics(competition);
+    }
+
+    public ChannelFuture sendStatistics(Competition competition) {
+        var builder = Statistics.newBuilder().setId(competition.getId());
+        var builder2 = Statistics.newBuilder().setId(competition.getId());
+        if (equals(competition.getPlayerA())) {
+            builder.setWinTime(competition.getPlayerAWin())
+                .setLoseTime(competition.getPlayerALose());
+            builder2.setWinTime(competition.getPlayerBWin())
+                .setLoseTime(competition.getPlayerBLose());
+        } else if (equals(competition.getPlayerB())) {
+            builder.setWinTime(competition.getPlayerBWin())
+                .setLoseTime(competition.getPlayerBLose());
+            builder2.setWinTime(competition.getPlayerAWin())
+                .setLoseTime(competition.getPlayerALose());
+        } else return channel.writeAndFlush(Response.newBuilder().setError("未在对局中").build());
+        channel.write(Response.newBuilder().setBody(Any.pack(builder.setMyself(true).build())));
+        return channel.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder2.setMyself(false).build())));
     }
 
     @Override
@@ -140,15 +293,15 @@ public class Player {
         if (this == o) return true;
         if (!(o instanceof Player)) return false;
         Player player = (Player) o;
-        return Objects.equals(getUuid(), player.getUuid());
+        return uuid.equals(player.uuid);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getUuid());
+        return uuid.hashCode();
     }
 
-    enum State {
+    public enum State {
         NOT_AUTHED,
         PLAYING,
         FREE;
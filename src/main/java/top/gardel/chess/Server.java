@@ -1,40 +1,95 @@
 package top.gardel.chess;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelId;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.ServerChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.protobuf.ProtobufDecoder;
-import io.netty.handler.codec.protobuf.ProtobufEncoder;
-import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
-import io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
-import io.netty.handler.logging.LogLevel;
-import io.netty.handler.logging.LoggingHandler;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import top.gardel.chess.admin.AdminServer;
+import top.gardel.chess.codec.ProtobufFrameDecoder;
+import top.gardel.chess.codec.ProtobufFrameEncoder;
+import top.gardel.chess.config.ServerConfig;
+import top.gardel.chess.event.EventBus;
+import top.gardel.chess.jfr.FlightRecorderHandler;
+import top.gardel.chess.log.AcceptLogHandler;
+import top.gardel.chess.log.EventLogger;
 import top.gardel.chess.proto.Request;
+import top.gardel.chess.tournament.TournamentManager;
 
 public class Server {
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
     private static Server INSTANCE;
     private final Map<ChannelId, Player> players;
     private final Map<Integer, Competition> competitions; // <对局号码, 对局>
-    private final int port;
-    private NioServerSocketChannel serverChannel = null;
+    private final ChannelGroup channels; // 所有客户端连接, 包括未登录的
+    private final ServerConfig config;
+    private final EventLogger eventLogger;
+    private final HashedWheelTimer timer;
+    private final EventBus eventBus;
+    private ServerChannel serverChannel = null;
+    private ServerChannel domainServerChannel = null;
+    private AdminServer adminServer = null;
+    private CompetitionSweeper sweeper = null;
+    private AdmissionHandler admissionHandler = null;
+    private TournamentManager tournamentManager = null;
 
     {
         INSTANCE = this;
     }
 
     public Server(int port) {
+        this(portConfig(port));
+    }
+
+    public Server(ServerConfig config) {
         players = new ConcurrentHashMap<>();
         competitions = new ConcurrentHashMap<>();
-        this.port = port;
+        channels = new DefaultChannelGroup("clients", GlobalEventExecutor.INSTANCE);
+        this.config = config;
+        eventLogger = new EventLogger(Logger.getLogger("App"), config.getLogCapacity());
+        config.applyTo(eventLogger);
+        timer = new HashedWheelTimer(new DefaultThreadFactory("competition-clock", true),
+            config.getClockTickMillis(), TimeUnit.MILLISECONDS, config.getClockWheelSize());
+        eventBus = new EventBus(config.getEventBusAsyncThreads(), config.getEventBusAsyncCapacity());
+    }
+
+    private static ServerConfig portConfig(int port) {
+        Properties properties = new Properties();
+        properties.setProperty("port", Integer.toString(port));
+        return new ServerConfig(properties);
     }
 
     public static Server getInstance() {
@@ -44,37 +99,130 @@ public class Server {
     public void run() {
         // Create event loop groups. One for incoming connections handling and
         // second for handling actual event by workers
-        EventLoopGroup serverGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        // 配置了 Unix 域套接字时改用 epoll, TCP 与域套接字共用同一组事件循环
+        boolean useEpoll = !config.getUnixPath().isEmpty() && Epoll.isAvailable();
+        if (!config.getUnixPath().isEmpty() && !useEpoll)
+            Logger.getLogger("Server").warning("epoll 不可用, 不监听 Unix 域套接字: " + Epoll.unavailabilityCause());
+        EventLoopGroup serverGroup = useEpoll
+            ? new EpollEventLoopGroup(config.getBossThreads())
+            : new NioEventLoopGroup(config.getBossThreads());
+        EventLoopGroup workerGroup = useEpoll
+            ? new EpollEventLoopGroup(config.getWorkerThreads())
+            : new NioEventLoopGroup(config.getWorkerThreads());
+        ProtobufFrameEncoder frameEncoder = new ProtobufFrameEncoder();
+        FlightRecorderHandler flightRecorderHandler = new FlightRecorderHandler();
+        int maxFrameLength = config.getMaxFrameLength();
+        int maxBatchSize = config.getMaxBatchSize();
+        admissionHandler = new AdmissionHandler(config.getMaxConnections(), config.getMaxConnectionsPerAddress(),
+            config.getAcceptRate(), config.getAcceptBurst());
+        AcceptLogHandler acceptLogHandler = new AcceptLogHandler(eventLogger);
+        ByteBufAllocator allocator = config.getAllocator() == ServerConfig.Allocator.POOLED
+            ? PooledByteBufAllocator.DEFAULT
+            : UnpooledByteBufAllocator.DEFAULT;
+
+        Class<? extends ServerChannel> serverChannelClass = useEpoll
+            ? EpollServerSocketChannel.class
+            : NioServerSocketChannel.class;
+        ChannelInitializer<ServerChannel> serverInitializer = new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(ServerChannel ch) {
+                ch.pipeline().addLast(admissionHandler, acceptLogHandler);
+            }
+        };
 
         try {
             ServerBootstrap bootStrap = new ServerBootstrap();
             bootStrap.group(serverGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
-                .handler(new LoggingHandler(LogLevel.INFO))
-                .childHandler(new ChannelInitializer<SocketChannel>() {
+                .channel(serverChannelClass)
+                .option(ChannelOption.SO_BACKLOG, config.getBacklog())
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.ALLOCATOR, allocator)
+                .handler(serverInitializer)
+                .childHandler(new ChannelInitializer<Channel>() {
                     @Override
-                    protected void initChannel(SocketChannel ch) {
+                    protected void initChannel(Channel ch) {
+                        channels.add(ch);
                         ChannelPipeline p = ch.pipeline();
-                        p.addLast(new ProtobufVarint32FrameDecoder());
-                        p.addLast(new ProtobufDecoder(Request.getDefaultInstance()));
+                        p.addLast(flightRecorderHandler);
+                        p.addLast(new ProtobufFrameDecoder<>(Request.parser(), maxFrameLength));
 
-                        p.addLast(new ProtobufVarint32LengthFieldPrepender());
-                        p.addLast(new ProtobufEncoder());
+                        p.addLast(frameEncoder);
 
-                        p.addLast(new ServerHandler(players, competitions));
+                        BatchCollector batchCollector = new BatchCollector();
+                        p.addLast(batchCollector);
+                        p.addLast(new ServerHandler(players, competitions, batchCollector, maxBatchSize, eventBus));
                     }
                 });
 
+            if (useEpoll) {
+                // 域套接字共用处理流水线，但不设置 TCP 选项
+                ServerBootstrap domainBootstrap = bootStrap.clone()
+                    .channel(EpollServerDomainSocketChannel.class);
+                removeStaleSocket(Paths.get(config.getUnixPath()));
+                domainServerChannel = (ServerChannel) domainBootstrap
+                    .bind(new DomainSocketAddress(config.getUnixPath())).sync().channel();
+            }
+
+            bootStrap.childOption(ChannelOption.TCP_NODELAY, config.isTcpNoDelay());
+            if (config.getSendBufferSize() > 0)
+                bootStrap.childOption(ChannelOption.SO_SNDBUF, config.getSendBufferSize());
+            if (config.getReceiveBufferSize() > 0)
+                bootStrap.childOption(ChannelOption.SO_RCVBUF, config.getReceiveBufferSize());
+
             // Bind to port
-            serverChannel = (NioServerSocketChannel) bootStrap.bind(port).sync().channel();
+            serverChannel = (ServerChannel) bootStrap.bind(config.getPort()).sync().channel();
+            sweeper = new CompetitionSweeper(competitions, timer,
+                competition -> App.getInstance().closeCompetition(competition),
+                config.getSweeperIntervalMillis(), config.getSweeperSliceSize(),
+                TimeUnit.SECONDS.toMillis(config.getWaitingTtlSeconds()),
+                TimeUnit.SECONDS.toMillis(config.getFinishedTtlSeconds()));
+            sweeper.start();
+            tournamentManager = new TournamentManager(workerGroup, players, eventLogger);
+            if (config.getAdminPort() > 0) {
+                adminServer = new AdminServer(this);
+                adminServer.start(config.getAdminPort());
+            }
             serverChannel.closeFuture().addListener((ChannelFuture future) -> {
+                if (domainServerChannel != null) domainServerChannel.close();
+                if (adminServer != null) adminServer.stop();
+                sweeper.stop();
                 serverGroup.shutdownGracefully();
                 workerGroup.shutdownGracefully();
+                timer.stop();
+                eventBus.close();
+                eventLogger.close();
             });
-        } catch (InterruptedException e) {
+        } catch (InterruptedException | IOException e) {
             e.printStackTrace();
+        } finally {
+            if (serverChannel == null) {
+                // 启动失败 (例如 TCP 端口被占用): 释放已绑定的域套接字与事件循环
+                if (domainServerChannel != null) {
+                    domainServerChannel.close();
+                    domainServerChannel = null;
+                }
+                serverGroup.shutdownGracefully();
+                workerGroup.shutdownGracefully();
+            }
+        }
+    }
+
+    /**
+     * 删除上次运行遗留的 Unix 域套接字文件; 路径上是其他类型的文件时拒绝启动, 不会误删
+     *
+     * @param path 套接字路径
+     * @throws IOException 路径上已有非套接字文件, 或无法读取、删除
+     */
+    static void removeStaleSocket(Path path) throws IOException {
+        int mode;
+        try {
+            mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
         }
+        if ((mode & S_IFMT) != S_IFSOCK)
+            throw new FileAlreadyExistsException(path.toString(), null, "已存在且不是 Unix 域套接字");
+        Files.deleteIfExists(path);
     }
 
     public boolean isRunning() {
@@ -87,13 +235,24 @@ public class Server {
     }
 
     public int getPort() {
-        return port;
+        return config.getPort();
+    }
+
+    public ServerConfig getConfig() {
+        return config;
     }
 
     public ServerChannel getServerChannel() {
         return serverChannel;
     }
 
+    /**
+     * @return Unix 域套接字的服务端 channel, 未启用时为 null
+     */
+    public ServerChannel getDomainServerChannel() {
+        return domainServerChannel;
+    }
+
     public Map<Integer, Competition> getCompetitions() {
         return competitions;
     }
@@ -102,4 +261,41 @@ public class Server {
         return players;
     }
 
+    /**
+     * 获取所有客户端连接, 包括尚未登录的; 连接关闭后自动移除
+     */
+    public ChannelGroup getChannels() {
+        return channels;
+    }
+
+    /**
+     * 获取所有对局共用的计时轮
+     */
+    public Timer getTimer() {
+        return timer;
+    }
+
+    public AdmissionHandler getAdmissionHandler() {
+        return admissionHandler;
+    }
+
+    public CompetitionSweeper getSweeper() {
+        return sweeper;
+    }
+
+    public TournamentManager getTournamentManager() {
+        return tournamentManager;
+    }
+
+    /**
+     * 获取客户端事件总线, 可在启动前注册额外的监听器
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public EventLogger getEventLogger() {
+        return eventLogger;
+    }
+
 }
@@ -6,20 +6,23 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelId;
 import io.netty.channel.SimpleChannelInboundHandler;
-import java.lang.reflect.Method;
 import java.util.Map;
-import java.util.Optional;
 import top.gardel.chess.event.AuthEvent;
 import top.gardel.chess.event.ClientEvent;
 import top.gardel.chess.event.CompetitionCreateEvent;
+import top.gardel.chess.event.CompetitionEvent;
 import top.gardel.chess.event.CompetitionJoinEvent;
 import top.gardel.chess.event.CompetitionLeaveEvent;
 import top.gardel.chess.event.CompetitionPutEvent;
 import top.gardel.chess.event.CompetitionResetEvent;
-import top.gardel.chess.event.EventHandler;
+import top.gardel.chess.event.EventBus;
 import top.gardel.chess.event.GetStatisticsEvent;
 import top.gardel.chess.event.SyncEvent;
+import top.gardel.chess.jfr.DispatchEvent;
 import top.gardel.chess.proto.AuthInfo;
+import top.gardel.chess.proto.Batch;
+import top.gardel.chess.proto.BatchItem;
+import top.gardel.chess.proto.BatchResponse;
 import top.gardel.chess.proto.CompetitionOperation;
 import top.gardel.chess.proto.GetStatistics;
 import top.gardel.chess.proto.Request;
@@ -29,42 +32,66 @@ import top.gardel.chess.proto.Sync;
 public class ServerHandler extends SimpleChannelInboundHandler<Request> {
     private final Map<ChannelId, Player> players;
     private final Map<Integer, Competition> competitions;
+    private final BatchCollector batchCollector;
+    private final int maxBatchSize;
+    private final EventBus eventBus;
     private final App app;
 
-    public ServerHandler(Map<ChannelId, Player> players, Map<Integer, Competition> competitions) {
+    public ServerHandler(Map<ChannelId, Player> players, Map<Integer, Competition> competitions,
+                         BatchCollector batchCollector, int maxBatchSize, EventBus eventBus) {
         this.players = players;
         this.competitions = competitions;
+        this.batchCollector = batchCollector;
+        this.maxBatchSize = maxBatchSize;
+        this.eventBus = eventBus;
         app = App.getInstance();
     }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         Channel channel = ctx.channel();
-        channel.closeFuture().addListener((ChannelFuture future) -> {
-            // 从玩家列表中删除
-            Player player = players.remove(future.channel().id());
-            if (player != null) {
-                Competition competition = player.getCompetition();
-                if (competition != null) {
-                    if (player.equals(competition.getPlayerB())) {
-                        // 通知 A 对手下线
-                        competition.setPlayerB(null);
-                    } else if (player.equals(competition.getPlayerA())) {
-                        // 结束对局
-                        Optional.ofNullable(competition.getPlayerB())
-                            .ifPresent(Player::sendFinish);
-                        competitions.remove(competition.getId());
-                    }
-                }
-            }
-        });
+        channel.closeFuture().addListener((ChannelFuture future) -> app.onChannelClosed(future.channel()));
         super.channelActive(ctx);
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Request msg) throws Exception {
-        Channel channel = ctx.channel();
         Any body = msg.getBody();
+        if (body.is(Batch.class)) handleBatch(ctx, body.unpack(Batch.class));
+        else dispatch(ctx, body, false);
+    }
+
+    /**
+     * 按顺序处理批量请求，把每个条目产生的回复合并为一个 BatchResponse
+     *
+     * @param ctx   上下文
+     * @param batch 批量请求
+     */
+    private void handleBatch(ChannelHandlerContext ctx, Batch batch) {
+        if (batch.getOperationsCount() > maxBatchSize) {
+            ctx.writeAndFlush(Response.newBuilder().setError("批量请求过大").build());
+            return;
+        }
+        var builder = BatchResponse.newBuilder();
+        for (Any operation : batch.getOperationsList()) {
+            batchCollector.begin();
+            try {
+                if (operation.is(Batch.class)) throw new IllegalArgumentException("不支持嵌套批量请求");
+                dispatch(ctx, operation, true);
+            } catch (Exception e) {
+                String errMsg = e.getLocalizedMessage();
+                batchCollector.add(Response.newBuilder()
+                    .setError(errMsg == null ? e.getClass().getSimpleName() : errMsg)
+                    .build());
+            } finally {
+                builder.addItems(BatchItem.newBuilder().addAllResponses(batchCollector.end()));
+            }
+        }
+        ctx.writeAndFlush(Response.newBuilder().setBody(Any.pack(builder.build())));
+    }
+
+    private void dispatch(ChannelHandlerContext ctx, Any body, boolean batched) throws Exception {
+        Channel channel = ctx.channel();
         ClientEvent<?> event = null;
         if (body.is(AuthInfo.class)) {
             AuthInfo authInfo = body.unpack(AuthInfo.class);
@@ -109,7 +136,24 @@ public class ServerHandler extends SimpleChannelInboundHandler<Request> {
             Player player = players.get(channel.id());
             event = new SyncEvent(channel, player, body.unpack(Sync.class));
         }
-        if (event != null) getEventHandler(event.getClass()).invoke(app, event);
+        if (event == null) return;
+        DispatchEvent dispatchEvent = new DispatchEvent();
+        dispatchEvent.begin();
+        boolean handled;
+        try {
+            handled = eventBus.post(event);
+        } finally {
+            // 监听器抛出异常的请求同样记录
+            if (dispatchEvent.shouldCommit()) {
+                dispatchEvent.eventType = event.getClass().getSimpleName();
+                if (event instanceof CompetitionEvent)
+                    dispatchEvent.competitionId = ((CompetitionEvent) event).getCompetitionId();
+                dispatchEvent.batched = batched;
+                dispatchEvent.commit();
+            }
+        }
+        if (!handled)
+            throw new IllegalStateException("没有监听 " + event.getClass().getSimpleName() + " 的处理器");
     }
 
     @Override
@@ -125,17 +169,4 @@ public class ServerHandler extends SimpleChannelInboundHandler<Request> {
         if (ctx.channel().isActive())
             ctx.writeAndFlush(Response.newBuilder().setError(errMsg == null ? cause.getClass().getSimpleName() : errMsg).build());
     }
-
-    @SuppressWarnings("rawtypes")
-    private Method getEventHandler(Class<? extends ClientEvent> eventClass) throws NoSuchMethodException {
-        var appClass = app.getClass();
-        Method[] methods = appClass.getMethods();
-        for (Method method : methods) {
-            if (method.getAnnotation(EventHandler.class) == null) continue;
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            if (parameterTypes.length > 0 && parameterTypes[0].equals(eventClass))
-                return method;
-        }
-        throw new NoSuchMethodException("public void fun(" + eventClass.getName() + " event): Not found.");
-    }
 }
@@ -0,0 +1,294 @@
+package top.gardel.chess.admin;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SimpleChannelInboundHandler;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import top.gardel.chess.AdmissionHandler;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.CompetitionSweeper;
+import top.gardel.chess.Player;
+import top.gardel.chess.Server;
+import top.gardel.chess.event.EventBus;
+import top.gardel.chess.proto.TimeControl;
+import top.gardel.chess.tournament.Participant;
+import top.gardel.chess.tournament.Pairing;
+import top.gardel.chess.tournament.Tournament;
+import top.gardel.chess.tournament.TournamentFormat;
+import top.gardel.chess.tournament.TournamentManager;
+
+/**
+ * 管理端口命令处理
+ * <p>
+ * 支持的命令:
+ * <pre>
+ * list [offset] [limit]   分页列出对局
+ * show &lt;id&gt;               查看对局棋盘与玩家
+ * loops                   各事件循环的连接数 (含未登录的)、不可写连接数与估算的待发送字节数
+ * stats                   对局数、清理、准入拒绝、异步事件与日志丢弃计数
+ * close &lt;id&gt;              强制结束对局
+ * tournament create &lt;swiss|rr&gt; &lt;rounds&gt; &lt;moveMillis&gt; &lt;*|uuid...&gt;
+ *                         创建赛事, rounds 为 0 时按赛制取默认轮数, moveMillis 为 0 时不计时,
+ *                         * 表示所有已登录的玩家
+ * tournament list         列出赛事
+ * tournament show &lt;id&gt;    查看赛事名次与当前轮配对
+ * tournament cancel &lt;id&gt;  终止赛事
+ * help                    帮助
+ * quit                    断开
+ * </pre>
+ */
+@ChannelHandler.Sharable
+public class AdminHandler extends SimpleChannelInboundHandler<String> {
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final Server server;
+
+    public AdminHandler(Server server) {
+        this.server = server;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        SocketAddress address = ctx.channel().remoteAddress();
+        if (!(address instanceof InetSocketAddress) || !((InetSocketAddress) address).getAddress().isLoopbackAddress()) {
+            ctx.close();
+            return;
+        }
+        super.channelActive(ctx);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, String msg) {
+        String[] args = msg.trim().split("\\s+");
+        StringBuilder sb = new StringBuilder();
+        try {
+            switch (args[0].toLowerCase()) {
+                case "":
+                    return;
+                case "list":
+                    list(sb, args.length > 1 ? Integer.parseInt(args[1]) : 0,
+                        args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PAGE_SIZE);
+                    break;
+                case "show":
+                    show(sb, parseId(args));
+                    break;
+                case "loops":
+                    loops(sb);
+                    break;
+                case "stats":
+                    stats(sb);
+                    break;
+                case "close":
+                    close(sb, parseId(args));
+                    break;
+                case "tournament":
+                    tournament(sb, args);
+                    break;
+                case "quit":
+                    ctx.writeAndFlush("bye\n").addListener(future -> ctx.close());
+                    return;
+                case "help":
+                default:
+                    sb.append("list [offset] [limit] | show <id> | loops | stats | close <id> | tournament <create|list|show|cancel> | quit\n");
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            sb.append("ERR ").append(e.getMessage()).append('\n');
+        }
+        ctx.writeAndFlush(sb.toString());
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        cause.printStackTrace();
+        ctx.close();
+    }
+
+    private static int parseId(String[] args) {
+        if (args.length < 2) throw new IllegalArgumentException("missing competition id");
+        return Integer.parseUnsignedInt(args[1]);
+    }
+
+    private void list(StringBuilder sb, int offset, int limit) {
+        if (offset < 0) throw new IllegalArgumentException("offset must be >= 0");
+        limit = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        Iterator<Competition> iterator = server.getCompetitions().values().iterator();
+        int skipped = 0;
+        while (skipped < offset && iterator.hasNext()) {
+            iterator.next();
+            skipped++;
+        }
+        int count = 0;
+        while (count < limit && iterator.hasNext()) {
+            appendSummary(sb, iterator.next());
+            count++;
+        }
+        sb.append(String.format("-- %d-%d of ~%d%s\n", offset, offset + count, server.getCompetitions().size(),
+            iterator.hasNext() ? ", more" : ""));
+    }
+
+    private void show(StringBuilder sb, int id) {
+        Competition competition = server.getCompetitions().get(id);
+        if (competition == null) throw new IllegalArgumentException("competition " + id + " not found");
+        appendSummary(sb, competition);
+        sb.append(competition);
+    }
+
+    private static void appendSummary(StringBuilder sb, Competition competition) {
+        Player playerA = competition.getPlayerA();
+        Player playerB = competition.getPlayerB();
+        sb.append(String.format("#%d A=%s B=%s score=%d:%d idle=%ds\n",
+            Integer.toUnsignedLong(competition.getId()),
+            playerA == null ? "-" : playerA.getUuid(),
+            playerB == null ? "-" : playerB.getUuid(),
+            competition.getPlayerAWin(), competition.getPlayerBWin(),
+            competition.getIdleMillis() / 1000));
+    }
+
+    /**
+     * 按事件循环统计连接。在管理线程上只读取 channel 公开的可写状态, 不触碰各传输的发送缓冲区:
+     * 待发送字节数由 {@code 高水位 - bytesBeforeUnwritable} 估算, 不可写的连接至少积压了高水位的字节数
+     */
+    private void loops(StringBuilder sb) {
+        Map<EventLoop, long[]> stats = new IdentityHashMap<>();
+        Map<ChannelId, Player> players = server.getPlayers();
+        for (Channel channel : server.getChannels()) {
+            long[] stat = stats.computeIfAbsent(channel.eventLoop(), loop -> new long[4]);
+            stat[0]++;
+            if (players.containsKey(channel.id())) stat[1]++;
+            if (!channel.isWritable()) stat[2]++;
+            stat[3] += Math.max(0, channel.config().getWriteBufferHighWaterMark() - channel.bytesBeforeUnwritable());
+        }
+        stats.forEach((loop, stat) -> sb.append(String.format("%s channels=%d players=%d unwritable=%d pending~%dB\n",
+            loop, stat[0], stat[1], stat[2], stat[3])));
+        sb.append(String.format("-- %d loops, %d channels, %d players\n",
+            stats.size(), server.getChannels().size(), players.size()));
+    }
+
+    private void stats(StringBuilder sb) {
+        sb.append("competitions=").append(server.getCompetitions().size()).append('\n');
+        sb.append("players=").append(server.getPlayers().size()).append('\n');
+        CompetitionSweeper sweeper = server.getSweeper();
+        if (sweeper != null) {
+            sb.append("sweeper.passes=").append(sweeper.getPasses()).append('\n');
+            sb.append("sweeper.evicted.waiting=").append(sweeper.getEvictedWaiting()).append('\n');
+            sb.append("sweeper.evicted.finished=").append(sweeper.getEvictedFinished()).append('\n');
+        }
+        AdmissionHandler admission = server.getAdmissionHandler();
+        if (admission != null) {
+            sb.append("admission.connections=").append(admission.getConnections()).append('\n');
+            sb.append("admission.rejected.rate=").append(admission.getRejectedByRate()).append('\n');
+            sb.append("admission.rejected.total=").append(admission.getRejectedByTotal()).append('\n');
+            sb.append("admission.rejected.address=").append(admission.getRejectedByAddress()).append('\n');
+        }
+        EventBus eventBus = server.getEventBus();
+        sb.append("eventbus.pending=").append(eventBus.getPendingAsync()).append('\n');
+        sb.append("eventbus.paused=").append(eventBus.getPausedChannels()).append('\n');
+        sb.append("eventbus.dropped=").append(eventBus.getDroppedCount()).append('\n');
+        sb.append("log.dropped=").append(server.getEventLogger().getDroppedCount()).append('\n');
+    }
+
+    private void close(StringBuilder sb, int id) {
+        Competition competition = server.getCompetitions().get(id);
+        if (competition == null) throw new IllegalArgumentException("competition " + id + " not found");
+        competition.getPlayerA().getChannel().eventLoop().execute(() -> App.getInstance().closeCompetition(competition));
+        sb.append("closing #").append(Integer.toUnsignedLong(id)).append('\n');
+    }
+
+    private void tournament(StringBuilder sb, String[] args) {
+        TournamentManager manager = server.getTournamentManager();
+        if (manager == null) throw new IllegalArgumentException("server is not running");
+        String command = args.length > 1 ? args[1].toLowerCase() : "list";
+        switch (command) {
+            case "create": {
+                if (args.length < 6)
+                    throw new IllegalArgumentException("usage: tournament create <swiss|rr> <rounds> <moveMillis> <*|uuid...>");
+                TournamentFormat format = args[2].equalsIgnoreCase("rr") || args[2].equalsIgnoreCase("roundrobin")
+                    ? TournamentFormat.ROUND_ROBIN
+                    : TournamentFormat.valueOf(args[2].toUpperCase());
+                int rounds = Integer.parseInt(args[3]);
+                int moveMillis = Integer.parseInt(args[4]);
+                TimeControl timeControl = moveMillis > 0 ? TimeControl.newBuilder().setMoveTimeout(moveMillis).build() : null;
+                List<Player> players = selectPlayers(args, 5);
+                Tournament tournament = manager.create(format, rounds, timeControl, players);
+                sb.append(String.format("tournament %d: %s, %d players, %d rounds\n", tournament.getId(),
+                    tournament.getFormat(), tournament.getParticipantCount(), tournament.getRounds()));
+                break;
+            }
+            case "list":
+                for (Tournament tournament : manager.getTournaments()) appendSummary(sb, tournament);
+                sb.append("-- ").append(manager.getTournaments().size()).append(" tournaments\n");
+                break;
+            case "show": {
+                Tournament tournament = findTournament(manager, args);
+                appendSummary(sb, tournament);
+                int rank = 1;
+                for (Participant participant : tournament.getStandings()) {
+                    sb.append(String.format("%4d %s score=%.1f buchholz=%.1f sb=%.1f wins=%d\n", rank++,
+                        participant.getUuid(), participant.getScore() / 2.0,
+                        participant.getBuchholz() / 2.0, participant.getSonnebornBerger() / 2.0,
+                        participant.getWins()));
+                }
+                for (Pairing pairing : tournament.getPairings()) {
+                    if (pairing.isBye()) {
+                        sb.append(String.format("bye %s\n", pairing.getPlayerA().getUuid()));
+                        continue;
+                    }
+                    sb.append(String.format("#%d %s - %s%s\n", Integer.toUnsignedLong(pairing.getCompetitionId()),
+                        pairing.getPlayerA().getUuid(), pairing.getPlayerB().getUuid(),
+                        pairing.isDone() ? " done" : ""));
+                }
+                break;
+            }
+            case "cancel": {
+                Tournament tournament = manager.remove(findTournament(manager, args).getId());
+                if (tournament != null) sb.append("cancelled tournament ").append(tournament.getId()).append('\n');
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown tournament command: " + command);
+        }
+    }
+
+    private static Tournament findTournament(TournamentManager manager, String[] args) {
+        if (args.length < 3) throw new IllegalArgumentException("missing tournament id");
+        Tournament tournament = manager.get(Integer.parseInt(args[2]));
+        if (tournament == null) throw new IllegalArgumentException("tournament " + args[2] + " not found");
+        return tournament;
+    }
+
+    private List<Player> selectPlayers(String[] args, int from) {
+        List<Player> players = new ArrayList<>();
+        if (args[from].equals("*")) {
+            for (Player player : server.getPlayers().values())
+                if (player.getState() != Player.State.NOT_AUTHED) players.add(player);
+            return players;
+        }
+        Set<UUID> uuids = new HashSet<>();
+        for (int i = from; i < args.length; i++) uuids.add(UUID.fromString(args[i]));
+        for (Player player : server.getPlayers().values())
+            if (uuids.remove(player.getUuid())) players.add(player);
+        if (!uuids.isEmpty()) throw new IllegalArgumentException("players not online: " + uuids);
+        return players;
+    }
+
+    private static void appendSummary(StringBuilder sb, Tournament tournament) {
+        sb.append(String.format("tournament %d %s %s round=%d/%d players=%d pending=%d\n", tournament.getId(),
+            tournament.getFormat(), tournament.getState(), tournament.getRound(), tournament.getRounds(),
+            tournament.getParticipantCount(), tournament.getPending()));
+    }
+}
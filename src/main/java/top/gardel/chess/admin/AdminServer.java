@@ -0,0 +1,72 @@
+package top.gardel.chess.admin;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import top.gardel.chess.Server;
+
+/**
+ * 仅监听本机回环地址的管理端口，使用行协议查看对局与连接
+ * <p>
+ * 使用独立的单线程事件循环，查询只做弱一致的遍历，不会占用游戏的事件循环
+ */
+public class AdminServer {
+    private static final int MAX_LINE_LENGTH = 1024;
+
+    private final Server server;
+    private final EventLoopGroup group;
+    private Channel channel;
+
+    public AdminServer(Server server) {
+        this.server = server;
+        group = new NioEventLoopGroup(1);
+    }
+
+    /**
+     * 绑定管理端口
+     *
+     * @param port 端口
+     * @throws InterruptedException 等待绑定时被中断
+     */
+    public void start(int port) throws InterruptedException {
+        AdminHandler handler = new AdminHandler(server);
+        StringEncoder encoder = new StringEncoder(StandardCharsets.UTF_8);
+        StringDecoder decoder = new StringDecoder(StandardCharsets.UTF_8);
+        channel = new ServerBootstrap()
+            .group(group)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) {
+                    ChannelPipeline p = ch.pipeline();
+                    p.addLast(new LineBasedFrameDecoder(MAX_LINE_LENGTH));
+                    p.addLast(decoder);
+                    p.addLast(encoder);
+                    p.addLast(handler);
+                }
+            })
+            .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))
+            .sync()
+            .channel();
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public void stop() {
+        if (channel != null) channel.close();
+        group.shutdownGracefully();
+    }
+}
@@ -0,0 +1,112 @@
+package top.gardel.chess.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import java.util.List;
+import top.gardel.chess.jfr.FrameDecodeEvent;
+
+/**
+ * 合并了 {@link io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder} 与
+ * {@link io.netty.handler.codec.protobuf.ProtobufDecoder} 的解码器
+ * <p>
+ * 读取 varint32 长度后直接在缓冲区的 NIO 视图上用 {@link CodedInputStream} 解析，
+ * 不切片也不拷贝成 byte[]; 长度超过 {@code maxFrameLength} 的帧直接断开连接,
+ * 消息体无法解析的帧被丢弃并抛出 {@link CorruptedFrameException}, 之后的帧不受影响
+ *
+ * @param <T> 要解析的消息类型
+ */
+public class ProtobufFrameDecoder<T extends MessageLite> extends ByteToMessageDecoder {
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024;
+
+    private final Parser<T> parser;
+    private final int maxFrameLength;
+
+    public ProtobufFrameDecoder(Parser<T> parser) {
+        this(parser, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param parser         消息解析器，如 {@code Request.parser()}
+     * @param maxFrameLength 允许的最大帧长度 (不含长度头)
+     */
+    public ProtobufFrameDecoder(Parser<T> parser, int maxFrameLength) {
+        if (maxFrameLength <= 0)
+            throw new IllegalArgumentException("maxFrameLength must be positive: " + maxFrameLength);
+        this.parser = parser;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        int preIndex = in.readerIndex();
+        int length = readRawVarint32(in);
+        if (preIndex == in.readerIndex()) return;
+        if (length < 0) throw new CorruptedFrameException("negative length: " + length);
+        if (length > maxFrameLength) {
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            throw new TooLongFrameException("frame length " + length + " exceeds " + maxFrameLength);
+        }
+        if (in.readableBytes() < length) {
+            in.readerIndex(preIndex);
+            return;
+        }
+        FrameDecodeEvent event = new FrameDecodeEvent();
+        event.begin();
+        boolean malformed = true;
+        try {
+            int index = in.readerIndex();
+            CodedInputStream input;
+            if (in.nioBufferCount() == 1) {
+                input = CodedInputStream.newInstance(in.internalNioBuffer(index, length));
+            } else if (in.hasArray()) {
+                input = CodedInputStream.newInstance(in.array(), in.arrayOffset() + index, length);
+            } else {
+                input = CodedInputStream.newInstance(ByteBufUtil.getBytes(in, index, length, false));
+            }
+            // 先越过整帧再解析, 消息体损坏时丢弃的是这一帧而不会把消息体当作下一帧的长度头
+            in.readerIndex(index + length);
+            T message;
+            try {
+                message = parser.parseFrom(input);
+            } catch (InvalidProtocolBufferException e) {
+                throw new CorruptedFrameException("malformed frame body (" + length + " bytes)", e);
+            }
+            out.add(message);
+            malformed = false;
+        } finally {
+            if (event.shouldCommit()) {
+                event.frameLength = length;
+                event.malformed = malformed;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 读取 varint32, 数据不足时恢复读指针并返回 0
+     */
+    private static int readRawVarint32(ByteBuf buffer) {
+        if (!buffer.isReadable()) return 0;
+        buffer.markReaderIndex();
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!buffer.isReadable()) {
+                buffer.resetReaderIndex();
+                return 0;
+            }
+            byte b = buffer.readByte();
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) return result;
+        }
+        throw new CorruptedFrameException("malformed varint.");
+    }
+}
@@ -0,0 +1,42 @@
+package top.gardel.chess.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.MessageLiteOrBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import java.util.List;
+
+/**
+ * 合并了 {@link io.netty.handler.codec.protobuf.ProtobufEncoder} 与
+ * {@link io.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender} 的编码器
+ * <p>
+ * 先计算消息长度，从 channel 的分配器申请一块大小正好的 (池化、直接内存) 缓冲区，
+ * 写入 varint32 长度后直接把消息序列化进缓冲区，每帧只分配一次，不经过堆上的 byte[]
+ */
+@ChannelHandler.Sharable
+public class ProtobufFrameEncoder extends MessageToMessageEncoder<MessageLiteOrBuilder> {
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, MessageLiteOrBuilder msg, List<Object> out) throws Exception {
+        MessageLite message = msg instanceof MessageLite ? (MessageLite) msg : ((MessageLite.Builder) msg).build();
+        int bodyLen = message.getSerializedSize();
+        int frameLen = CodedOutputStream.computeUInt32SizeNoTag(bodyLen) + bodyLen;
+        ByteBuf buf = ctx.alloc().ioBuffer(frameLen, frameLen);
+        try {
+            int writerIndex = buf.writerIndex();
+            CodedOutputStream output = CodedOutputStream.newInstance(buf.nioBuffer(writerIndex, frameLen));
+            output.writeUInt32NoTag(bodyLen);
+            message.writeTo(output);
+            output.flush();
+            output.checkNoSpaceLeft();
+            buf.writerIndex(writerIndex + frameLen);
+            out.add(buf);
+            buf = null;
+        } finally {
+            if (buf != null) buf.release();
+        }
+    }
+}
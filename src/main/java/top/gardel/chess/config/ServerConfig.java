@@ -0,0 +1,247 @@
+package top.gardel.chess.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+import lombok.AccessLevel;
+import lombok.Getter;
+import top.gardel.chess.codec.ProtobufFrameDecoder;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.log.EventType;
+
+/**
+ * 服务器配置
+ * <p>
+ * 依次读取默认值、配置文件 (properties 格式) 和命令行参数，后者覆盖前者。
+ * 命令行格式: {@code [端口] [--config=文件] [--键=值 ...]}, 未指定配置文件时
+ * 若工作目录下存在 {@value #DEFAULT_CONFIG_FILE} 则读取它
+ */
+@Getter
+public class ServerConfig {
+    public static final String DEFAULT_CONFIG_FILE = "chess-server.properties";
+
+    @Getter(AccessLevel.NONE)
+    private final Properties properties;
+    @Getter(AccessLevel.NONE)
+    private final Set<String> knownKeys = new HashSet<>(); // 构造时读取过的键, 其余的键视为拼写错误
+    private final int port;
+    private final String unixPath;
+    private final int bossThreads;
+    private final int workerThreads;
+    private final int backlog;
+    private final boolean tcpNoDelay;
+    private final int sendBufferSize;
+    private final int receiveBufferSize;
+    private final Allocator allocator;
+    private final int maxFrameLength;
+    private final int maxBatchSize;
+    private final int maxConnections;
+    private final int maxConnectionsPerAddress;
+    private final int acceptRate;
+    private final int acceptBurst;
+    private final int logCapacity;
+    private final int adminPort;
+    private final int clockTickMillis;
+    private final int clockWheelSize;
+    private final int maxCompetitions;
+    private final int maxCompetitionsPerPlayer;
+    private final int sweeperIntervalMillis;
+    private final int sweeperSliceSize;
+    private final int waitingTtlSeconds;
+    private final int finishedTtlSeconds;
+    private final int eventBusAsyncThreads;
+    private final int eventBusAsyncCapacity;
+    @Getter(AccessLevel.NONE)
+    private final Level[] logLevels; // 按 EventType 序号
+    @Getter(AccessLevel.NONE)
+    private final int[] logSampleRates;
+
+    /**
+     * 从 properties 构造配置并校验, 所有模块读取的配置项都在这里解析, 无法识别的键 (如拼写错误) 也视为错误,
+     * 错误在启动时一并报告
+     *
+     * @param properties 配置项, 未出现的键使用默认值
+     * @throws IllegalArgumentException 配置项格式错误或超出范围
+     */
+    public ServerConfig(Properties properties) {
+        this.properties = properties;
+        List<String> errors = new ArrayList<>();
+        port = getInt(errors, "port", 5544, 0, 65535);
+        unixPath = getString("unix.path", "");
+        bossThreads = getInt(errors, "boss.threads", 1, 1, 64);
+        workerThreads = getInt(errors, "worker.threads", 0, 0, 4096);
+        backlog = getInt(errors, "so.backlog", 1024, 1, 65535);
+        tcpNoDelay = getBoolean(errors, "tcp.nodelay", true);
+        sendBufferSize = getInt(errors, "so.sndbuf", 0, 0, Integer.MAX_VALUE);
+        receiveBufferSize = getInt(errors, "so.rcvbuf", 0, 0, Integer.MAX_VALUE);
+        allocator = getEnum(errors, "allocator", Allocator.class, Allocator.POOLED);
+        maxFrameLength = getInt(errors, "frame.max-length", ProtobufFrameDecoder.DEFAULT_MAX_FRAME_LENGTH, 16,
+            16 * 1024 * 1024);
+        maxConnections = getInt(errors, "admission.max-connections", 0, 0, Integer.MAX_VALUE);
+        maxConnectionsPerAddress = getInt(errors, "admission.max-per-address", 0, 0, Integer.MAX_VALUE);
+        acceptRate = getInt(errors, "admission.accept-rate", 0, 0, Integer.MAX_VALUE);
+        acceptBurst = getInt(errors, "admission.accept-burst", 1000, 1, Integer.MAX_VALUE);
+        maxBatchSize = getInt(errors, "batch.max-operations", 256, 1, 65536);
+        logCapacity = getInt(errors, "log.capacity", EventLogger.DEFAULT_CAPACITY, 1, 1 << 24);
+        adminPort = getInt(errors, "admin.port", 0, 0, 65535);
+        clockTickMillis = getInt(errors, "clock.tick-millis", 100, 1, 1000);
+        clockWheelSize = getInt(errors, "clock.wheel-size", 512, 16, 1 << 20);
+        maxCompetitions = getInt(errors, "competition.max", 100_000, 0, Integer.MAX_VALUE);
+        maxCompetitionsPerPlayer = getInt(errors, "player.max-competitions", 1024, 0, Integer.MAX_VALUE);
+        waitingTtlSeconds = getInt(errors, "competition.waiting-ttl", 600, 0, Integer.MAX_VALUE);
+        finishedTtlSeconds = getInt(errors, "competition.finished-ttl", 300, 0, Integer.MAX_VALUE);
+        sweeperIntervalMillis = getInt(errors, "sweeper.interval-millis", 1000, 10, 3_600_000);
+        sweeperSliceSize = getInt(errors, "sweeper.slice-size", 1024, 1, 1 << 20);
+        eventBusAsyncThreads = getInt(errors, "eventbus.async-threads", 2, 1, 256);
+        eventBusAsyncCapacity = getInt(errors, "eventbus.async-capacity", 4096, 4, 1 << 20);
+        EventType[] types = EventType.values();
+        logLevels = new Level[types.length];
+        logSampleRates = new int[types.length];
+        for (EventType type : types) {
+            String key = "log." + type.name().toLowerCase(Locale.ROOT);
+            logLevels[type.ordinal()] = getLevel(errors, key + ".level", type.getDefaultLevel());
+            logSampleRates[type.ordinal()] = getInt(errors, key + ".sample", 1, 1, Integer.MAX_VALUE);
+        }
+        for (String key : properties.stringPropertyNames())
+            if (!knownKeys.contains(key)) errors.add(key + " 不是可识别的配置项");
+        if (!errors.isEmpty()) throw new IllegalArgumentException("配置错误: " + String.join("; ", errors));
+    }
+
+    /**
+     * 使用默认值构造配置
+     */
+    public static ServerConfig defaults() {
+        return new ServerConfig(new Properties());
+    }
+
+    /**
+     * 解析命令行参数
+     *
+     * @param args 命令行参数
+     * @return 合并了配置文件与命令行参数的配置
+     * @throws IOException 读取配置文件失败
+     */
+    public static ServerConfig parse(String[] args) throws IOException {
+        Properties overrides = new Properties();
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                String kv = arg.substring(2);
+                int eq = kv.indexOf('=');
+                String key = eq < 0 ? kv : kv.substring(0, eq);
+                String value;
+                if (eq >= 0) value = kv.substring(eq + 1);
+                else if (i + 1 < args.length) value = args[++i];
+                else throw new IllegalArgumentException("缺少参数值: " + arg);
+                if (key.equals("config")) file = Paths.get(value);
+                else overrides.setProperty(key, value);
+            } else if (i == 0) {
+                overrides.setProperty("port", arg);
+            } else throw new IllegalArgumentException("无法识别的参数: " + arg);
+        }
+        if (file == null) {
+            Path defaultFile = Paths.get(DEFAULT_CONFIG_FILE);
+            if (Files.isRegularFile(defaultFile)) file = defaultFile;
+        }
+        Properties properties = new Properties();
+        if (file != null) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        properties.putAll(overrides);
+        return new ServerConfig(properties);
+    }
+
+    /**
+     * 把日志级别与采样率应用到事件日志
+     */
+    public void applyTo(EventLogger eventLogger) {
+        for (EventType type : EventType.values()) {
+            eventLogger.setLevel(type, logLevels[type.ordinal()]);
+            eventLogger.setSampleRate(type, logSampleRates[type.ordinal()]);
+        }
+    }
+
+    /**
+     * 读取配置项的原始值, 并记下该键已被识别
+     */
+    private String read(String key) {
+        knownKeys.add(key);
+        return properties.getProperty(key);
+    }
+
+    private String getString(String key, String def) {
+        String value = read(key);
+        return value == null || value.isBlank() ? def : value.trim();
+    }
+
+    private int getInt(List<String> errors, String key, int def, int min, int max) {
+        String value = read(key);
+        if (value == null || value.isBlank()) return def;
+        int result;
+        try {
+            result = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            errors.add(String.format("%s = %s 不是整数", key, value));
+            return def;
+        }
+        if (result < min || result > max) {
+            errors.add(String.format("%s = %d 不在 [%d, %d] 范围内", key, result, min, max));
+            return def;
+        }
+        return result;
+    }
+
+    private boolean getBoolean(List<String> errors, String key, boolean def) {
+        String value = read(key);
+        if (value == null || value.isBlank()) return def;
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                errors.add(String.format("%s = %s 不是 true/false", key, value));
+                return def;
+        }
+    }
+
+    private <E extends Enum<E>> E getEnum(List<String> errors, String key, Class<E> type, E def) {
+        String value = read(key);
+        if (value == null || value.isBlank()) return def;
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            errors.add(String.format("%s = %s 不是有效值", key, value));
+            return def;
+        }
+    }
+
+    private Level getLevel(List<String> errors, String key, Level def) {
+        String value = read(key);
+        if (value == null || value.isBlank()) return def;
+        try {
+            return Level.parse(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            errors.add(String.format("%s = %s 不是有效的日志级别", key, value));
+            return def;
+        }
+    }
+
+    public enum Allocator {
+        POOLED,
+        UNPOOLED
+    }
+}
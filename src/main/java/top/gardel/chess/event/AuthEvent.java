@@ -1,6 +1,7 @@
 package top.gardel.chess.event;
 
 import io.netty.channel.Channel;
+import java.util.UUID;
 import top.gardel.chess.Player;
 import top.gardel.chess.proto.AuthInfo;
 
@@ -10,8 +11,18 @@ public class AuthEvent extends ClientEvent<AuthInfo> {
         super(channel, player, request);
     }
 
-    public String getPlayerUuid() {
-        return getRequest().getUuid();
+    /**
+     * @return 客户端携带的 UUID, 未携带时为 null
+     */
+    public UUID getPlayerUuid() {
+        return Player.parseUuid(getRequest());
+    }
+
+    /**
+     * @return 客户端是否协商使用二进制 UUID
+     */
+    public boolean isBinaryUuid() {
+        return getRequest().getBinaryUuid();
     }
 
     @Override
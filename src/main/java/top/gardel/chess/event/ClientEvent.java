@@ -9,6 +9,7 @@ public abstract class ClientEvent<T extends Message> {
     private final Channel channel;
     private final Player player;
     private final T request;
+    private boolean cancelled;
 
     public ClientEvent(@NonNull Channel channel, Player player, @NonNull T request) {
         this.channel = channel;
@@ -27,4 +28,15 @@ public abstract class ClientEvent<T extends Message> {
     public T getRequest() {
         return request;
     }
+
+    /**
+     * 同步监听器取消事件后, 优先级更低的监听器 (含异步监听器) 不再收到该事件
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
 }
@@ -3,9 +3,18 @@ package top.gardel.chess.event;
 import io.netty.channel.Channel;
 import top.gardel.chess.Player;
 import top.gardel.chess.proto.CompetitionOperation;
+import top.gardel.chess.proto.TimeControl;
 
 public class CompetitionCreateEvent extends CompetitionEvent {
     public CompetitionCreateEvent(Channel channel, Player player, CompetitionOperation request) {
         super(channel, player, request);
     }
+
+    public boolean hasTimeControl() {
+        return getRequest().hasTimeControl();
+    }
+
+    public TimeControl getTimeControl() {
+        return getRequest().getTimeControl();
+    }
 }
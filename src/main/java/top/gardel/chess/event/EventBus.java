@@ -0,0 +1,322 @@
+package top.gardel.chess.event;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 客户端事件总线
+ * <p>
+ * 每种事件可注册多个监听器, 监听某类型的监听器同时收到其子类型的事件, 按优先级 (数值小的先执行)
+ * 与注册顺序排列。同步监听器在 channel 的事件循环中依次执行, 抛出的异常会中止后续监听器并交给调用方;
+ * 异步监听器在同步监听器之后提交到有界线程池, 同一事件的异步监听器在同一任务中按顺序执行。
+ * <p>
+ * 每个事件类对应的监听器数组在注册时预先算好并以不可变表发布, 投递时只有一次表查找。
+ * 异步队列积压过半时暂停投递事件的 channel 的读取, 回落到四分之一以下时恢复; 队列满时丢弃并计数
+ */
+public class EventBus implements AutoCloseable {
+    public static final int DEFAULT_PRIORITY = 0;
+    private static final Logger logger = Logger.getLogger("EventBus");
+    private static final EventListener<?>[] NO_LISTENERS = new EventListener<?>[0];
+    private static final Comparator<Registration> ORDER = Comparator
+        .comparingInt(Registration::getPriority)
+        .thenComparingLong(registration -> registration.order);
+
+    private final List<Registration> registrations = new ArrayList<>(); // guarded by this
+    private volatile Map<Class<?>, Dispatch> dispatchTable = Map.of();
+    private long nextOrder; // guarded by this
+
+    private final ThreadPoolExecutor asyncExecutor;
+    private final int pauseThreshold;
+    private final int resumeThreshold;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Set<Channel> paused = ConcurrentHashMap.newKeySet();
+    private final ChannelFutureListener removeOnClose = future -> paused.remove(future.channel());
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param asyncThreads  异步监听器线程数
+     * @param asyncCapacity 异步任务队列容量
+     */
+    public EventBus(int asyncThreads, int asyncCapacity) {
+        if (asyncThreads < 1) throw new IllegalArgumentException("asyncThreads < 1");
+        if (asyncCapacity < 4) throw new IllegalArgumentException("asyncCapacity < 4");
+        asyncExecutor = new ThreadPoolExecutor(asyncThreads, asyncThreads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(asyncCapacity), new DefaultThreadFactory("event-bus", true));
+        pauseThreshold = asyncCapacity / 2;
+        resumeThreshold = asyncCapacity / 4;
+    }
+
+    /**
+     * 一个已注册的监听器
+     */
+    public static final class Registration {
+        private final Class<?> eventType;
+        private final EventListener<?> listener;
+        private final int priority;
+        private final boolean async;
+        private final long order;
+
+        private Registration(Class<?> eventType, EventListener<?> listener, int priority, boolean async, long order) {
+            this.eventType = eventType;
+            this.listener = listener;
+            this.priority = priority;
+            this.async = async;
+            this.order = order;
+        }
+
+        public Class<?> getEventType() {
+            return eventType;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public boolean isAsync() {
+            return async;
+        }
+    }
+
+    /**
+     * 某个事件类的预计算分发表
+     */
+    private static final class Dispatch {
+        private final EventListener<?>[] sync;
+        private final EventListener<?>[] async;
+
+        private Dispatch(EventListener<?>[] sync, EventListener<?>[] async) {
+            this.sync = sync;
+            this.async = async;
+        }
+    }
+
+    /**
+     * 注册监听器
+     *
+     * @param eventType 事件类型, 也接收其子类型
+     * @param listener  监听器
+     * @param priority  优先级, 数值小的先执行
+     * @param async     是否在异步线程池中执行
+     * @return 注册项, 用于注销
+     */
+    public synchronized <E extends ClientEvent<?>> Registration register(Class<E> eventType,
+                                                                          EventListener<? super E> listener,
+                                                                          int priority, boolean async) {
+        Registration registration = new Registration(eventType, listener, priority, async, nextOrder++);
+        registrations.add(registration);
+        rebuild();
+        return registration;
+    }
+
+    /**
+     * 以默认优先级注册同步监听器
+     */
+    public <E extends ClientEvent<?>> Registration register(Class<E> eventType, EventListener<? super E> listener) {
+        return register(eventType, listener, DEFAULT_PRIORITY, false);
+    }
+
+    /**
+     * 注册对象上所有带 {@link EventHandler} 注解的 public 方法
+     *
+     * @param holder 含有事件处理方法的对象
+     * @return 注册项
+     * @throws IllegalArgumentException 方法签名不符合要求
+     */
+    public synchronized List<Registration> register(Object holder) {
+        List<Registration> result = new ArrayList<>();
+        for (Method method : holder.getClass().getMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null) continue;
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length != 1 || !ClientEvent.class.isAssignableFrom(parameterTypes[0]))
+                throw new IllegalArgumentException("事件处理方法须只有一个 ClientEvent 参数: " + method);
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.publicLookup().unreflect(method).bindTo(holder)
+                    .asType(MethodType.methodType(void.class, ClientEvent.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("无法访问事件处理方法: " + method, e);
+            }
+            Registration registration = new Registration(parameterTypes[0], event -> invoke(handle, event),
+                annotation.priority(), annotation.async(), nextOrder++);
+            registrations.add(registration);
+            result.add(registration);
+        }
+        rebuild();
+        return result;
+    }
+
+    private static void invoke(MethodHandle handle, ClientEvent<?> event) throws Exception {
+        try {
+            handle.invokeExact(event);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+    /**
+     * 注销监听器
+     *
+     * @param registration 注册项
+     * @return 是否注销成功
+     */
+    public synchronized boolean unregister(Registration registration) {
+        if (!registrations.remove(registration)) return false;
+        rebuild();
+        return true;
+    }
+
+    /**
+     * 重新计算已出现过的事件类的分发表, 新的事件类在首次投递时计算
+     */
+    private void rebuild() {
+        Map<Class<?>, Dispatch> table = new HashMap<>();
+        for (Class<?> eventClass : dispatchTable.keySet()) table.put(eventClass, compute(eventClass));
+        dispatchTable = table;
+    }
+
+    private synchronized Dispatch computeIfAbsent(Class<?> eventClass) {
+        Dispatch dispatch = dispatchTable.get(eventClass);
+        if (dispatch != null) return dispatch;
+        dispatch = compute(eventClass);
+        Map<Class<?>, Dispatch> table = new HashMap<>(dispatchTable);
+        table.put(eventClass, dispatch);
+        dispatchTable = table;
+        return dispatch;
+    }
+
+    private Dispatch compute(Class<?> eventClass) {
+        List<Registration> matched = new ArrayList<>();
+        for (Registration registration : registrations)
+            if (registration.eventType.isAssignableFrom(eventClass)) matched.add(registration);
+        matched.sort(ORDER);
+        List<EventListener<?>> sync = new ArrayList<>();
+        List<EventListener<?>> async = new ArrayList<>();
+        for (Registration registration : matched) (registration.async ? async : sync).add(registration.listener);
+        return new Dispatch(sync.toArray(NO_LISTENERS), async.toArray(NO_LISTENERS));
+    }
+
+    /**
+     * 投递事件, 应在事件 channel 的事件循环中调用
+     *
+     * @param event 事件
+     * @return 是否有监听器接收该事件
+     * @throws Exception 同步监听器抛出的异常
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public boolean post(ClientEvent<?> event) throws Exception {
+        Dispatch dispatch = dispatchTable.get(event.getClass());
+        if (dispatch == null) dispatch = computeIfAbsent(event.getClass());
+        for (EventListener listener : dispatch.sync) {
+            listener.onEvent(event);
+            if (event.isCancelled()) return true;
+        }
+        if (dispatch.async.length > 0) submit(event, dispatch.async);
+        return dispatch.sync.length > 0 || dispatch.async.length > 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void submit(ClientEvent<?> event, EventListener<?>[] listeners) {
+        Channel channel = event.getChannel();
+        if (inFlight.incrementAndGet() > pauseThreshold) pause(channel);
+        try {
+            asyncExecutor.execute(() -> {
+                try {
+                    for (EventListener listener : listeners) {
+                        try {
+                            listener.onEvent(event);
+                        } catch (Exception e) {
+                            logger.log(Level.WARNING, "异步监听器处理 " + event.getClass().getSimpleName() + " 失败", e);
+                        }
+                    }
+                } finally {
+                    if (inFlight.decrementAndGet() <= resumeThreshold) resumeAll();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            dropped.increment();
+            if (inFlight.decrementAndGet() <= resumeThreshold) resumeAll();
+        }
+    }
+
+    /**
+     * 在 channel 的事件循环中调用: 先关闭自动读取再登记, 恢复方从集合中取走 channel 时一定能看到已暂停的状态
+     */
+    private void pause(Channel channel) {
+        if (paused.contains(channel)) return;
+        channel.config().setAutoRead(false);
+        paused.add(channel);
+        channel.closeFuture().addListener(removeOnClose);
+        // 暂停期间队列可能已经排空
+        if (inFlight.get() <= resumeThreshold) resumeAll();
+    }
+
+    /**
+     * 可在任意线程调用, 恢复读取提交到各 channel 的事件循环执行, 与 {@link #pause} 不会交错;
+     * 执行前又被暂停的 channel 保持暂停
+     */
+    private void resumeAll() {
+        if (paused.isEmpty()) return;
+        for (Iterator<Channel> iterator = paused.iterator(); iterator.hasNext(); ) {
+            Channel channel = iterator.next();
+            iterator.remove();
+            channel.closeFuture().removeListener(removeOnClose);
+            channel.eventLoop().execute(() -> {
+                if (!paused.contains(channel)) channel.config().setAutoRead(true);
+            });
+        }
+    }
+
+    /**
+     * @return 等待或正在执行的异步任务数
+     */
+    public int getPendingAsync() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return 因异步队列已满被丢弃的事件数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return 当前因异步积压被暂停读取的 channel 数
+     */
+    public int getPausedChannels() {
+        return paused.size();
+    }
+
+    /**
+     * 停止异步线程池, 已排队的任务仍会执行
+     */
+    @Override
+    public void close() {
+        asyncExecutor.shutdown();
+    }
+}
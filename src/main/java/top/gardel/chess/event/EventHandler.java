@@ -5,7 +5,19 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * 标记事件处理方法, 方法须为 public 且只有一个 {@link ClientEvent} 子类型的参数, 由 {@link EventBus#register(Object)} 注册
+ */
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface EventHandler {
+    /**
+     * @return 优先级, 数值小的先执行
+     */
+    int priority() default EventBus.DEFAULT_PRIORITY;
+
+    /**
+     * @return 是否在异步线程池中执行
+     */
+    boolean async() default false;
 }
@@ -0,0 +1,11 @@
+package top.gardel.chess.event;
+
+/**
+ * 事件监听器
+ *
+ * @param <E> 监听的事件类型, 同时接收其子类型的事件
+ */
+@FunctionalInterface
+public interface EventListener<E extends ClientEvent<?>> {
+    void onEvent(E event) throws Exception;
+}
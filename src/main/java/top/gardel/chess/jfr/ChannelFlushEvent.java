@@ -0,0 +1,30 @@
+package top.gardel.chess.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 刷出 channel 的发送缓冲区
+ */
+@Name("top.gardel.chess.ChannelFlush")
+@Label("Channel Flush")
+@Description("把发送缓冲区写入套接字")
+@Category({"Chess Server", "Transport"})
+@Enabled(false)
+@StackTrace(false)
+public class ChannelFlushEvent extends jdk.jfr.Event {
+    @Label("Queued Bytes")
+    @Description("刷出前发送缓冲区中的字节数, 超过高水位时记为高水位")
+    @DataAmount
+    public long queuedBytes;
+
+    @Label("Remaining Bytes")
+    @Description("刷出后仍未写入套接字的字节数, 非零说明对端读得慢或套接字缓冲区已满")
+    @DataAmount
+    public long remainingBytes;
+}
@@ -0,0 +1,29 @@
+package top.gardel.chess.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 把编码后的帧放入 channel 的发送缓冲区
+ */
+@Name("top.gardel.chess.ChannelWrite")
+@Label("Channel Write")
+@Description("编码后的帧进入发送缓冲区")
+@Category({"Chess Server", "Transport"})
+@Enabled(false)
+@StackTrace(false)
+public class ChannelWriteEvent extends jdk.jfr.Event {
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+
+    @Label("Queued Bytes")
+    @Description("写入后发送缓冲区中的字节数, 超过高水位时记为高水位")
+    @DataAmount
+    public long queuedBytes;
+}
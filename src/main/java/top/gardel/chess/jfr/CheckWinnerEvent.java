@@ -0,0 +1,27 @@
+package top.gardel.chess.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Unsigned;
+
+/**
+ * 判定胜负
+ */
+@Name("top.gardel.chess.CheckWinner")
+@Label("Check Winner")
+@Description("Competition.checkWinner")
+@Category({"Chess Server", "Game"})
+@Enabled(false)
+@StackTrace(false)
+public class CheckWinnerEvent extends jdk.jfr.Event {
+    @Label("Competition Id")
+    @Unsigned
+    public int competitionId;
+
+    @Label("Winner")
+    public char winner;
+}
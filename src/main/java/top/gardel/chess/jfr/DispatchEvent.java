@@ -0,0 +1,30 @@
+package top.gardel.chess.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Unsigned;
+
+/**
+ * 把一个请求交给事件总线处理, 含所有同步监听器的执行时间
+ */
+@Name("top.gardel.chess.Dispatch")
+@Label("Dispatch")
+@Description("ServerHandler 处理一个请求 (批量请求中的每一项单独记录)")
+@Category({"Chess Server", "Handler"})
+@Enabled(false)
+@StackTrace(false)
+public class DispatchEvent extends jdk.jfr.Event {
+    @Label("Event Type")
+    public String eventType;
+
+    @Label("Competition Id")
+    @Unsigned
+    public int competitionId;
+
+    @Label("Batched")
+    public boolean batched;
+}
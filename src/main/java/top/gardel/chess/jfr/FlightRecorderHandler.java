@@ -0,0 +1,68 @@
+package top.gardel.chess.jfr;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 放在流水线最靠近套接字的位置, 记录编码后帧的写入与刷出
+ * <p>
+ * 对应事件未启用时只多一次 {@code isEnabled} 判断
+ */
+@ChannelHandler.Sharable
+public class FlightRecorderHandler extends ChannelOutboundHandlerAdapter {
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        ChannelWriteEvent event = new ChannelWriteEvent();
+        if (!event.isEnabled()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        int bytes = msg instanceof ByteBuf ? ((ByteBuf) msg).readableBytes() : 0;
+        event.begin();
+        try {
+            ctx.write(msg, promise);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.bytes = bytes;
+                event.queuedBytes = queuedBytes(ctx);
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        ChannelFlushEvent event = new ChannelFlushEvent();
+        if (!event.isEnabled()) {
+            ctx.flush();
+            return;
+        }
+        long queued = queuedBytes(ctx);
+        event.begin();
+        try {
+            ctx.flush();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.queuedBytes = queued;
+                event.remainingBytes = queuedBytes(ctx);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 由高水位与 {@code bytesBeforeUnwritable} 推算发送缓冲区中的字节数, 只用 channel 的公开接口;
+     * 超过高水位后 channel 不可写, 结果停在高水位, 只表示积压至少这么多
+     */
+    private static long queuedBytes(ChannelHandlerContext ctx) {
+        Channel channel = ctx.channel();
+        return Math.max(0, channel.config().getWriteBufferHighWaterMark() - channel.bytesBeforeUnwritable());
+    }
+}
@@ -0,0 +1,27 @@
+package top.gardel.chess.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 解析一个请求帧
+ */
+@Name("top.gardel.chess.FrameDecode")
+@Label("Frame Decode")
+@Description("解析一个 protobuf 请求帧")
+@Category({"Chess Server", "Codec"})
+@Enabled(false)
+@StackTrace(false)
+public class FrameDecodeEvent extends jdk.jfr.Event {
+    @Label("Frame Length")
+    @DataAmount
+    public int frameLength;
+
+    @Label("Malformed")
+    public boolean malformed;
+}
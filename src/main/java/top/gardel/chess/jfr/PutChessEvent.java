@@ -0,0 +1,30 @@
+package top.gardel.chess.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Unsigned;
+
+/**
+ * 一次落子, 含通知双方的写出
+ */
+@Name("top.gardel.chess.PutChess")
+@Label("Put Chess")
+@Description("Competition.putChess")
+@Category({"Chess Server", "Game"})
+@Enabled(false)
+@StackTrace(false)
+public class PutChessEvent extends jdk.jfr.Event {
+    @Label("Competition Id")
+    @Unsigned
+    public int competitionId;
+
+    @Label("Sequence")
+    public long sequence;
+
+    @Label("Accepted")
+    public boolean accepted;
+}
@@ -0,0 +1,136 @@
+package top.gardel.chess.jfr;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * 离线汇总 JFR 录制文件中本服务器的事件, 按阶段输出耗时分布
+ * <p>
+ * 阶段为事件名去掉 {@code top.gardel.chess.} 前缀, 其中 Dispatch 按请求类型细分。用法:
+ * <pre>
+ * ./gradlew jfrSummary --args="recording.jfr [...]"
+ * </pre>
+ */
+public class RecordingSummary {
+    private static final String PREFIX = "top.gardel.chess.";
+
+    private final Map<String, Stage> stages = new TreeMap<>();
+
+    /**
+     * 单个阶段的耗时样本
+     */
+    static final class Stage {
+        private long[] durations = new long[64];
+        private int count;
+        private long totalNanos;
+        private long totalBytes;
+
+        void add(long nanos, long bytes) {
+            if (count == durations.length) durations = Arrays.copyOf(durations, count * 2);
+            durations[count++] = nanos;
+            totalNanos += nanos;
+            totalBytes += bytes;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @param sorted 已排序的样本
+         * @param p      百分位, (0, 100]
+         */
+        private long percentile(long[] sorted, double p) {
+            int index = (int) Math.ceil(p / 100 * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    /**
+     * 读取一个录制文件
+     */
+    public void read(Path path) throws IOException {
+        try (RecordingFile file = new RecordingFile(path)) {
+            while (file.hasMoreEvents()) accept(file.readEvent());
+        }
+    }
+
+    /**
+     * 计入一个事件, 非本服务器的事件被忽略
+     */
+    public void accept(RecordedEvent event) {
+        String name = event.getEventType().getName();
+        if (!name.startsWith(PREFIX)) return;
+        String stage = name.substring(PREFIX.length());
+        long bytes = 0;
+        switch (stage) {
+            case "Dispatch": {
+                String eventType = event.getString("eventType");
+                stage = stage + '/' + (eventType == null ? "?" : eventType);
+                break;
+            }
+            case "FrameDecode":
+                bytes = event.getLong("frameLength");
+                break;
+            case "ChannelWrite":
+            case "ChannelFlush":
+                bytes = event.getLong("queuedBytes");
+                break;
+            default:
+                break;
+        }
+        stages.computeIfAbsent(stage, key -> new Stage()).add(event.getDuration().toNanos(), bytes);
+    }
+
+    /**
+     * @return 阶段的样本, 没有样本时为 null
+     */
+    Stage getStage(String stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * 输出各阶段的次数、总耗时、平均与分位耗时, 以及平均字节数
+     * (FrameDecode 为帧长度, ChannelWrite / ChannelFlush 为发送缓冲区积压)。
+     * 阶段之间有嵌套 (Dispatch 包含 PutChess, PutChess 包含 CheckWinner 与写出), 总耗时不能直接相加
+     */
+    public void print(PrintStream out) {
+        out.printf("%-36s %10s %10s %10s %10s %10s %10s %10s %10s%n",
+            "stage", "count", "total(ms)", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "max(us)", "avg bytes");
+        for (Map.Entry<String, Stage> entry : stages.entrySet()) {
+            Stage stage = entry.getValue();
+            long[] sorted = Arrays.copyOf(stage.durations, stage.count);
+            Arrays.sort(sorted);
+            out.printf("%-36s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %10d%n",
+                entry.getKey(), stage.count,
+                stage.totalNanos / 1_000_000.0,
+                stage.totalNanos / 1000.0 / stage.count,
+                stage.percentile(sorted, 50) / 1000.0,
+                stage.percentile(sorted, 90) / 1000.0,
+                stage.percentile(sorted, 99) / 1000.0,
+                sorted[stage.count - 1] / 1000.0,
+                stage.totalBytes / stage.count);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("用法: RecordingSummary <录制文件.jfr> [...]");
+            System.exit(1);
+        }
+        RecordingSummary summary = new RecordingSummary();
+        for (String arg : args) summary.read(Paths.get(arg));
+        summary.print(System.out);
+    }
+}
@@ -0,0 +1,26 @@
+package top.gardel.chess.log;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 挂在服务端 channel 上，把新接受的连接作为 {@link EventType#ACCEPT} 事件异步记录，
+ * 取代同步输出的 {@link io.netty.handler.logging.LoggingHandler}
+ */
+@ChannelHandler.Sharable
+public class AcceptLogHandler extends ChannelInboundHandlerAdapter {
+    private final EventLogger eventLogger;
+
+    public AcceptLogHandler(EventLogger eventLogger) {
+        this.eventLogger = eventLogger;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Channel)
+            eventLogger.log(EventType.ACCEPT, null, 0, ((Channel) msg).remoteAddress());
+        super.channelRead(ctx, msg);
+    }
+}
@@ -0,0 +1,184 @@
+package top.gardel.chess.log;
+
+import java.time.Instant;
+import java.util.Formatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * 异步结构化日志
+ * <p>
+ * 事件循环线程只把 (类型, UUID, 对局号码) 写入有界无锁环形缓冲区，
+ * 格式化与 {@link java.util.logging} 的 I/O 都在后台线程完成。
+ * 缓冲区满时丢弃事件并计数，绝不阻塞调用方
+ */
+public class EventLogger implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Logger logger;
+    private final LogEvent[] ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // 仅后台线程访问
+    private final AtomicReferenceArray<Level> levels = new AtomicReferenceArray<>(EventType.values().length);
+    private final AtomicIntegerArray sampleRates = new AtomicIntegerArray(EventType.values().length);
+    private final AtomicLongArray sampleCounters = new AtomicLongArray(EventType.values().length);
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public EventLogger(Logger logger) {
+        this(logger, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param logger   实际输出日志的 Logger
+     * @param capacity 缓冲区容量，向上取整为 2 的幂
+     */
+    public EventLogger(Logger logger, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        if (size <= 0) size = 1;
+        this.logger = logger;
+        this.ring = new LogEvent[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) ring[i] = new LogEvent(i);
+        for (EventType type : EventType.values()) {
+            levels.set(type.ordinal(), type.getDefaultLevel());
+            sampleRates.set(type.ordinal(), 1);
+        }
+        worker = new Thread(this::drainLoop, "event-logger");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 设置某类事件的日志级别
+     */
+    public void setLevel(EventType type, Level level) {
+        levels.set(type.ordinal(), level);
+    }
+
+    public Level getLevel(EventType type) {
+        return levels.get(type.ordinal());
+    }
+
+    /**
+     * 设置采样率, 每 {@code rate} 个事件只记录 1 个
+     *
+     * @param rate 大于等于 1, 1 表示全部记录
+     */
+    public void setSampleRate(EventType type, int rate) {
+        if (rate < 1) throw new IllegalArgumentException("rate must be >= 1: " + rate);
+        sampleRates.set(type.ordinal(), rate);
+    }
+
+    /**
+     * @return 因缓冲区满被丢弃的事件数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public boolean isEnabled(EventType type) {
+        return logger.isLoggable(getLevel(type));
+    }
+
+    public void log(EventType type, UUID uuid) {
+        log(type, uuid, 0, null);
+    }
+
+    public void log(EventType type, UUID uuid, int competitionId) {
+        log(type, uuid, competitionId, null);
+    }
+
+    public void log(EventType type, int competitionId) {
+        log(type, null, competitionId, null);
+    }
+
+    /**
+     * 发布事件，不会阻塞
+     *
+     * @return 是否进入缓冲区
+     */
+    public boolean log(EventType type, UUID uuid, int competitionId, Object detail) {
+        if (!running || !isEnabled(type)) return false;
+        int rate = sampleRates.get(type.ordinal());
+        if (rate > 1 && sampleCounters.getAndIncrement(type.ordinal()) % rate != 0) return false;
+        LogEvent slot;
+        long pos;
+        for (; ; ) {
+            pos = tail.get();
+            slot = ring[(int) (pos & mask)];
+            long diff = slot.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+            } else if (diff < 0) {
+                dropped.increment();
+                return false;
+            }
+        }
+        slot.type = type;
+        slot.timestamp = System.currentTimeMillis();
+        slot.uuid = uuid;
+        slot.competitionId = competitionId;
+        slot.detail = detail;
+        slot.sequence = pos + 1;
+        return true;
+    }
+
+    private void drainLoop() {
+        StringBuilder sb = new StringBuilder(128);
+        Formatter formatter = new Formatter(sb);
+        while (running || hasPending()) {
+            if (!drain(sb, formatter)) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private boolean hasPending() {
+        return ring[(int) (head & mask)].sequence == head + 1;
+    }
+
+    private boolean drain(StringBuilder sb, Formatter formatter) {
+        boolean any = false;
+        for (; ; ) {
+            LogEvent slot = ring[(int) (head & mask)];
+            if (slot.sequence != head + 1) return any;
+            any = true;
+            EventType type = slot.type;
+            sb.setLength(0);
+            try {
+                type.format(formatter, slot);
+            } catch (RuntimeException e) {
+                sb.append(type).append(": ").append(e);
+            }
+            LogRecord record = new LogRecord(getLevel(type), sb.toString());
+            record.setInstant(Instant.ofEpochMilli(slot.timestamp));
+            record.setLoggerName(logger.getName());
+            slot.clear();
+            slot.sequence = head + ring.length;
+            head++;
+            logger.log(record);
+        }
+    }
+
+    /**
+     * 停止接收新事件，写完缓冲区内剩余的事件
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join();
+    }
+}
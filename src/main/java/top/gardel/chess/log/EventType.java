@@ -0,0 +1,83 @@
+package top.gardel.chess.log;
+
+import java.util.Formatter;
+import java.util.logging.Level;
+
+/**
+ * 结构化日志事件类型，每种类型有自己的格式与默认级别
+ */
+public enum EventType {
+    ACCEPT(Level.FINE) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("接受连接 %s", e.getDetail());
+        }
+    },
+    AUTH(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("%s 加入游戏", e.getUuid());
+        }
+    },
+    CREATE(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("玩家 %s 用数字 %d 创建了对局", e.getUuid(), e.getCompetitionId());
+        }
+    },
+    JOIN(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("玩家 %s 用数字 %d 加入了对局", e.getUuid(), e.getCompetitionId());
+        }
+    },
+    LEAVE(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("玩家 %s 离开了对局 %d", e.getUuid(), e.getCompetitionId());
+        }
+    },
+    DELETE(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("对局 %d 已删除", e.getCompetitionId());
+        }
+    },
+    TIMEOUT(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("玩家 %s 在对局 %d 中超时", e.getUuid(), e.getCompetitionId());
+        }
+    },
+    /**
+     * 赛事开始新一轮, 对局号码一栏为赛事编号, detail 为 {轮次, 总轮数, 对局数}
+     */
+    ROUND(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            int[] round = (int[]) e.getDetail();
+            f.format("赛事 %d 第 %d/%d 轮: %d 局", e.getCompetitionId(), round[0], round[1], round[2]);
+        }
+    },
+    /**
+     * 赛事结束, 对局号码一栏为赛事编号
+     */
+    TOURNAMENT(Level.INFO) {
+        @Override
+        void format(Formatter f, LogEvent e) {
+            f.format("赛事 %d 结束", e.getCompetitionId());
+        }
+    };
+
+    private final Level defaultLevel;
+
+    EventType(Level defaultLevel) {
+        this.defaultLevel = defaultLevel;
+    }
+
+    public Level getDefaultLevel() {
+        return defaultLevel;
+    }
+
+    abstract void format(Formatter f, LogEvent e);
+}
@@ -0,0 +1,29 @@
+package top.gardel.chess.log;
+
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 环形缓冲区中的一个槽位，由生产者填充、后台线程读取后复用
+ */
+@Getter
+public final class LogEvent {
+    @Getter(AccessLevel.NONE)
+    volatile long sequence;
+    EventType type;
+    long timestamp;
+    UUID uuid;
+    int competitionId;
+    Object detail;
+
+    LogEvent(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void clear() {
+        type = null;
+        uuid = null;
+        detail = null;
+    }
+}
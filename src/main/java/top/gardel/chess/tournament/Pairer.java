@@ -0,0 +1,24 @@
+package top.gardel.chess.tournament;
+
+import java.util.List;
+
+/**
+ * 配对算法
+ */
+public interface Pairer {
+    /**
+     * 生成一轮的配对
+     *
+     * @param participants 所有选手, 按报名顺序
+     * @param round        轮次, 从 1 开始
+     * @return 配对, 轮空的选手以 {@code playerB == null} 表示
+     */
+    List<Pairing> pair(List<Participant> participants, int round);
+
+    /**
+     * @param participants 选手数
+     * @param requested    请求的轮数
+     * @return 实际进行的轮数
+     */
+    int rounds(int participants, int requested);
+}
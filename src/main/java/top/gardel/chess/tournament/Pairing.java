@@ -0,0 +1,38 @@
+package top.gardel.chess.tournament;
+
+import lombok.Getter;
+
+/**
+ * 一轮中的一组配对, {@code playerB} 为 null 表示轮空
+ */
+@Getter
+public class Pairing {
+    private final Participant playerA;
+    private final Participant playerB;
+    private int competitionId;
+    private boolean done;
+
+    public Pairing(Participant playerA, Participant playerB) {
+        this.playerA = playerA;
+        this.playerB = playerB;
+    }
+
+    /**
+     * 按执子平衡决定先后: 执 A 次数较少的一方作为玩家 A
+     */
+    static Pairing balanced(Participant p, Participant q) {
+        return p.getColorBalance() <= q.getColorBalance() ? new Pairing(p, q) : new Pairing(q, p);
+    }
+
+    public boolean isBye() {
+        return playerB == null;
+    }
+
+    void setCompetitionId(int competitionId) {
+        this.competitionId = competitionId;
+    }
+
+    void setDone() {
+        done = true;
+    }
+}
@@ -0,0 +1,85 @@
+package top.gardel.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.Getter;
+import top.gardel.chess.Player;
+
+/**
+ * 赛事选手, 积分按半分制记录: 胜 2, 平 1, 负 0
+ * <p>
+ * 选手以 UUID 标识; 重新登录 (包括换用新连接) 后, 每轮配对前会重新绑定到该 UUID 当前在线的玩家
+ */
+@Getter
+public class Participant {
+    private final UUID uuid;
+    private volatile Player player;
+    private final int seed;
+    private int score;
+    private int wins;
+    private int colorBalance; // 执 A 次数 - 执 B 次数
+    private boolean hadBye;
+    private final Set<UUID> opponents = new HashSet<>();
+    private final List<Participant> opponentList = new ArrayList<>();
+    private final List<Integer> pointList = new ArrayList<>();
+
+    public Participant(Player player, int seed) {
+        this.uuid = player.getUuid();
+        this.player = player;
+        this.seed = seed;
+    }
+
+    /**
+     * 绑定到该选手当前在线的玩家
+     */
+    void setPlayer(Player player) {
+        if (!uuid.equals(player.getUuid())) throw new IllegalArgumentException("uuid mismatch");
+        this.player = player;
+    }
+
+    /**
+     * 是否还能参加配对, 连接断开视为退赛
+     */
+    public boolean isActive() {
+        return player.getChannel().isActive();
+    }
+
+    public boolean hasPlayed(Participant other) {
+        return opponents.contains(other.uuid);
+    }
+
+    void recordGame(Participant opponent, boolean asA, int points) {
+        opponents.add(opponent.uuid);
+        opponentList.add(opponent);
+        pointList.add(points);
+        colorBalance += asA ? 1 : -1;
+        score += points;
+        if (points == 2) wins++;
+    }
+
+    void recordBye() {
+        hadBye = true;
+        score += 2;
+    }
+
+    /**
+     * Buchholz 分: 所有对手的积分之和
+     */
+    public int getBuchholz() {
+        int sum = 0;
+        for (Participant opponent : opponentList) sum += opponent.score;
+        return sum;
+    }
+
+    /**
+     * Sonneborn-Berger 分: 击败的对手积分之和加上战平对手积分的一半 (半分制下即 points × 对手积分 / 2)
+     */
+    public int getSonnebornBerger() {
+        int sum = 0;
+        for (int i = 0; i < opponentList.size(); i++) sum += pointList.get(i) * opponentList.get(i).score;
+        return sum / 2;
+    }
+}
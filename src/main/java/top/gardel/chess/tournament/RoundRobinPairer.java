@@ -0,0 +1,46 @@
+package top.gardel.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单循环配对 (圆圈法): 固定第一位选手, 其余选手每轮旋转一格, 奇数人时补一个轮空位
+ */
+public class RoundRobinPairer implements Pairer {
+
+    @Override
+    public List<Pairing> pair(List<Participant> participants, int round) {
+        List<Participant> ring = new ArrayList<>(participants);
+        if (ring.size() % 2 == 1) ring.add(null);
+        int n = ring.size();
+        int shift = (round - 1) % (n - 1);
+        List<Pairing> pairings = new ArrayList<>(n / 2);
+        for (int i = 0; i < n / 2; i++) {
+            Participant p = at(ring, i, shift);
+            Participant q = at(ring, n - 1 - i, shift);
+            if (p == null || q == null) {
+                Participant bye = p == null ? q : p;
+                if (bye.isActive()) pairings.add(new Pairing(bye, null));
+            } else if (!p.isActive() || !q.isActive()) {
+                // 退赛选手的对手直接轮空得分
+                if (p.isActive()) pairings.add(new Pairing(p, null));
+                if (q.isActive()) pairings.add(new Pairing(q, null));
+            } else {
+                pairings.add(Pairing.balanced(p, q));
+            }
+        }
+        return pairings;
+    }
+
+    private static Participant at(List<Participant> ring, int index, int shift) {
+        if (index == 0) return ring.get(0);
+        int n = ring.size() - 1;
+        return ring.get(1 + (index - 1 + shift) % n);
+    }
+
+    @Override
+    public int rounds(int participants, int requested) {
+        int full = participants % 2 == 0 ? participants - 1 : participants;
+        return requested > 0 ? Math.min(requested, full) : full;
+    }
+}
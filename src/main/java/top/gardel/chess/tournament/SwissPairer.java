@@ -0,0 +1,81 @@
+package top.gardel.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 瑞士制配对
+ * <p>
+ * 按积分排序后自高到低逐个处理积分组, 组内上半区与下半区依次配对, 遇到已相遇的对手时在
+ * 下半区向后查找至多 {@value #LOOK_AHEAD} 位; 人数为奇数的组把最后一名降到下一组。
+ * 除排序外每名选手只被访问常数次, 整体为 O(n log n)
+ */
+public class SwissPairer implements Pairer {
+    static final int LOOK_AHEAD = 8;
+
+    private static final Comparator<Participant> RANKING = Comparator
+        .comparingInt(Participant::getScore).reversed()
+        .thenComparingInt(Participant::getSeed);
+
+    @Override
+    public List<Pairing> pair(List<Participant> participants, int round) {
+        List<Participant> active = new ArrayList<>(participants.size());
+        for (Participant participant : participants) if (participant.isActive()) active.add(participant);
+        active.sort(RANKING);
+        List<Pairing> pairings = new ArrayList<>(active.size() / 2 + 1);
+        if (active.size() % 2 == 1) {
+            // 排名最低且未轮空过的选手轮空
+            int index = active.size() - 1;
+            while (index > 0 && active.get(index).isHadBye()) index--;
+            pairings.add(new Pairing(active.remove(index), null));
+        }
+
+        List<Participant> group = new ArrayList<>();
+        int i = 0;
+        while (i < active.size()) {
+            int score = active.get(i).getScore();
+            while (i < active.size() && active.get(i).getScore() == score) group.add(active.get(i++));
+            if (group.size() % 2 == 1 && i < active.size()) {
+                // 降级到下一组
+                Participant floater = group.remove(group.size() - 1);
+                pairGroup(group, pairings);
+                group.clear();
+                group.add(floater);
+            } else {
+                pairGroup(group, pairings);
+                group.clear();
+            }
+        }
+        return pairings;
+    }
+
+    private static void pairGroup(List<Participant> group, List<Pairing> out) {
+        int half = group.size() / 2;
+        int bottomSize = group.size() - half;
+        boolean[] used = new boolean[bottomSize];
+        int firstFree = 0;
+        for (int t = 0; t < half; t++) {
+            Participant p = group.get(t);
+            while (used[firstFree]) firstFree++;
+            int pick = firstFree;
+            for (int j = firstFree, tried = 0; j < bottomSize && tried < LOOK_AHEAD; j++) {
+                if (used[j]) continue;
+                tried++;
+                if (!p.hasPlayed(group.get(half + j))) {
+                    pick = j;
+                    break;
+                }
+            }
+            used[pick] = true;
+            out.add(Pairing.balanced(p, group.get(half + pick)));
+        }
+    }
+
+    @Override
+    public int rounds(int participants, int requested) {
+        if (requested > 0) return requested;
+        // 默认 ceil(log2(n)) 轮, 足以决出唯一的全胜者
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(participants - 1, 1)));
+    }
+}
@@ -0,0 +1,222 @@
+package top.gardel.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import lombok.Getter;
+import top.gardel.chess.Player;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.log.EventType;
+import top.gardel.chess.proto.TimeControl;
+
+/**
+ * 一场赛事: 逐轮配对, 批量开局, 收集结果并推进到下一轮
+ * <p>
+ * 对局结果来自各玩家所在的事件循环, 状态变更都在本对象的锁内完成;
+ * 每轮收齐结果后, 下一轮的配对和开局作为任务提交给 {@code executor}, 不阻塞上报结果的事件循环
+ */
+public class Tournament {
+    private static final Comparator<Participant> STANDINGS = Comparator
+        .comparingInt(Participant::getScore)
+        .thenComparingInt(Participant::getBuchholz)
+        .thenComparingInt(Participant::getSonnebornBerger)
+        .thenComparingInt(Participant::getWins)
+        .reversed()
+        .thenComparingInt(Participant::getSeed);
+
+    public enum State {
+        PENDING,
+        RUNNING,
+        FINISHED
+    }
+
+    @Getter
+    private final int id;
+    @Getter
+    private final TournamentFormat format;
+    @Getter
+    private final int rounds;
+    @Getter
+    private final TimeControl timeControl;
+    private final List<Participant> participants;
+    private final Pairer pairer;
+    private final GameLauncher launcher;
+    private final Executor executor;
+    private final EventLogger eventLogger;
+    @Getter
+    private State state = State.PENDING;
+    @Getter
+    private int round;
+    private List<Pairing> pairings = Collections.emptyList();
+    private int pending;
+
+    /**
+     * 为一组配对开局
+     */
+    public interface GameLauncher {
+        /**
+         * 为配对开局, 开局失败时 (如有选手已断开) 应以判负的方式调用 {@link Tournament#onGameFinished}
+         *
+         * @param tournament 赛事
+         * @param pairing    配对, 不会是轮空
+         */
+        void launch(Tournament tournament, Pairing pairing);
+
+        /**
+         * 每轮配对前调用, 把选手重新绑定到其 UUID 当前在线的玩家 ({@link Participant#setPlayer})
+         *
+         * @param participants 所有选手
+         */
+        default void refresh(List<Participant> participants) {
+        }
+
+        /**
+         * 赛事结束或被终止
+         *
+         * @param tournament 赛事
+         */
+        default void finished(Tournament tournament) {
+        }
+    }
+
+    /**
+     * @param id          赛事编号
+     * @param format      赛制
+     * @param rounds      轮数, 0 表示按赛制取默认值 (单循环为全部轮次, 瑞士制为 ceil(log2(n)))
+     * @param timeControl 每局的计时设置, 可为 null
+     * @param players     选手, 按种子顺序
+     * @param launcher    开局方式
+     * @param executor    轮次推进任务的执行器
+     * @param eventLogger 记录轮次与结束的日志
+     */
+    public Tournament(int id, TournamentFormat format, int rounds, TimeControl timeControl, List<Player> players,
+                      GameLauncher launcher, Executor executor, EventLogger eventLogger) {
+        if (players.size() < 2) throw new IllegalArgumentException("至少需要两名选手");
+        this.id = id;
+        this.format = format;
+        this.pairer = format == TournamentFormat.SWISS ? new SwissPairer() : new RoundRobinPairer();
+        this.rounds = pairer.rounds(players.size(), rounds);
+        this.timeControl = timeControl;
+        this.participants = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) participants.add(new Participant(players.get(i), i));
+        this.launcher = launcher;
+        this.executor = executor;
+        this.eventLogger = eventLogger;
+    }
+
+    /**
+     * 开始第一轮
+     */
+    public synchronized void start() {
+        if (state != State.PENDING) throw new IllegalStateException("赛事已开始");
+        state = State.RUNNING;
+        executor.execute(this::advance);
+    }
+
+    /**
+     * 进入下一轮, 所有轮次结束时结束赛事
+     */
+    private synchronized void advance() {
+        if (state != State.RUNNING) return;
+        if (round >= rounds) {
+            finish();
+            return;
+        }
+        round++;
+        launcher.refresh(participants);
+        pairings = pairer.pair(participants, round);
+        pending = 0;
+        List<Pairing> games = new ArrayList<>(pairings.size());
+        for (Pairing pairing : pairings) {
+            if (pairing.isBye()) {
+                pairing.getPlayerA().recordBye();
+                pairing.setDone();
+            } else {
+                pending++;
+                games.add(pairing);
+            }
+        }
+        eventLogger.log(EventType.ROUND, null, id, new int[]{round, rounds, games.size()});
+        if (pending == 0) {
+            // 无对局可下 (选手均已退赛), 直接结束
+            finish();
+            return;
+        }
+        for (Pairing pairing : games) launcher.launch(this, pairing);
+    }
+
+    private void finish() {
+        state = State.FINISHED;
+        pairings = Collections.emptyList();
+        eventLogger.log(EventType.TOURNAMENT, id);
+        launcher.finished(this);
+    }
+
+    /**
+     * 记录一局的结果, 本轮结果收齐后提交下一轮
+     *
+     * @param pairing 配对
+     * @param winner  checkWinner 的结果: A / B 为胜方, N 为和棋, 0 为未分胜负即被结束 (双方均记负)
+     */
+    public synchronized void onGameFinished(Pairing pairing, byte winner) {
+        if (pairing.isDone() || state != State.RUNNING) return;
+        pairing.setDone();
+        Participant a = pairing.getPlayerA();
+        Participant b = pairing.getPlayerB();
+        int pointsA, pointsB;
+        switch (winner) {
+            case 'A':
+                pointsA = 2;
+                pointsB = 0;
+                break;
+            case 'B':
+                pointsA = 0;
+                pointsB = 2;
+                break;
+            case 'N':
+                pointsA = pointsB = 1;
+                break;
+            default:
+                pointsA = pointsB = 0;
+        }
+        a.recordGame(b, true, pointsA);
+        b.recordGame(a, false, pointsB);
+        if (--pending == 0) executor.execute(this::advance);
+    }
+
+    /**
+     * 终止赛事, 已开局的对局不受影响, 但其结果不再计入
+     */
+    public synchronized void cancel() {
+        if (state != State.FINISHED) finish();
+    }
+
+    /**
+     * @return 按积分、Buchholz、Sonneborn-Berger、胜局数排序的名次表
+     */
+    public synchronized List<Participant> getStandings() {
+        List<Participant> standings = new ArrayList<>(participants);
+        standings.sort(STANDINGS);
+        return standings;
+    }
+
+    /**
+     * @return 当前轮次的配对
+     */
+    public synchronized List<Pairing> getPairings() {
+        return new ArrayList<>(pairings);
+    }
+
+    public int getParticipantCount() {
+        return participants.size();
+    }
+
+    /**
+     * @return 当前轮次尚未出结果的对局数
+     */
+    public synchronized int getPending() {
+        return pending;
+    }
+}
@@ -0,0 +1,15 @@
+package top.gardel.chess.tournament;
+
+/**
+ * 赛制
+ */
+public enum TournamentFormat {
+    /**
+     * 单循环, 每两名选手之间对局一次
+     */
+    ROUND_ROBIN,
+    /**
+     * 瑞士制, 每轮按积分分组配对, 同一对选手不重复相遇 (无法避免时除外)
+     */
+    SWISS
+}
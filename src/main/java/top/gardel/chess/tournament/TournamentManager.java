@@ -0,0 +1,141 @@
+package top.gardel.chess.tournament;
+
+import io.netty.channel.ChannelId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import top.gardel.chess.App;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.proto.TimeControl;
+
+/**
+ * 管理所有赛事, 并为赛事对局分配号码、在玩家的事件循环中开局
+ * <p>
+ * 赛事对局的号码从 2^31 (按无符号数) 起递增分配, 与客户端自选的号码冲突时顺延
+ */
+public class TournamentManager implements Tournament.GameLauncher {
+    private static final int MAX_ID_ATTEMPTS = 64;
+
+    private final Map<Integer, Tournament> tournaments = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTournamentId = new AtomicInteger(1);
+    private final AtomicInteger nextCompetitionId = new AtomicInteger(Integer.MIN_VALUE);
+    private final Executor executor;
+    private final Map<ChannelId, Player> players;
+    private final EventLogger eventLogger;
+
+    /**
+     * @param executor    轮次推进任务的执行器, 一般为服务器的 worker 事件循环组
+     * @param players     在线玩家表, 用于把选手重新绑定到其当前的连接
+     * @param eventLogger 赛事日志
+     */
+    public TournamentManager(Executor executor, Map<ChannelId, Player> players, EventLogger eventLogger) {
+        this.executor = executor;
+        this.players = players;
+        this.eventLogger = eventLogger;
+    }
+
+    /**
+     * 创建并开始一场赛事
+     *
+     * @param format      赛制
+     * @param rounds      轮数, 0 表示按赛制取默认值
+     * @param timeControl 每局的计时设置, 可为 null
+     * @param players     选手, 按种子顺序
+     * @return 赛事
+     */
+    public Tournament create(TournamentFormat format, int rounds, TimeControl timeControl, List<Player> players) {
+        Tournament tournament = new Tournament(nextTournamentId.getAndIncrement(), format, rounds, timeControl,
+            players, this, executor, eventLogger);
+        tournaments.put(tournament.getId(), tournament);
+        tournament.start();
+        return tournament;
+    }
+
+    public Tournament get(int id) {
+        return tournaments.get(id);
+    }
+
+    public Collection<Tournament> getTournaments() {
+        return tournaments.values();
+    }
+
+    /**
+     * 终止并移除赛事, 正常结束的赛事会自动移除
+     *
+     * @return 被移除的赛事, 不存在时为 null
+     */
+    public Tournament remove(int id) {
+        Tournament tournament = tournaments.remove(id);
+        if (tournament != null) tournament.cancel();
+        return tournament;
+    }
+
+    @Override
+    public void refresh(List<Participant> participants) {
+        Map<UUID, Player> online = new HashMap<>();
+        for (Player player : players.values())
+            if (player.getState() != Player.State.NOT_AUTHED) online.put(player.getUuid(), player);
+        for (Participant participant : participants) {
+            Player player = online.get(participant.getUuid());
+            if (player != null) participant.setPlayer(player);
+        }
+    }
+
+    @Override
+    public void finished(Tournament tournament) {
+        tournaments.remove(tournament.getId(), tournament);
+    }
+
+    /**
+     * @return 选手绑定的玩家仍是其连接上当前登录的玩家时返回该玩家, 已重新登录或断开时为 null
+     */
+    private Player current(Participant participant) {
+        Player player = participant.getPlayer();
+        return players.get(player.getChannel().id()) == player ? player : null;
+    }
+
+    @Override
+    public void launch(Tournament tournament, Pairing pairing) {
+        pairing.getPlayerA().getPlayer().getChannel().eventLoop().execute(() -> {
+            Player playerA = current(pairing.getPlayerA());
+            Player playerB = current(pairing.getPlayerB());
+            boolean activeA = playerA != null && playerA.getChannel().isActive();
+            boolean activeB = playerB != null && playerB.getChannel().isActive();
+            if (!activeA || !activeB) {
+                // 已断开或在配对后又重新登录的一方判负
+                tournament.onGameFinished(pairing, activeA ? (byte) 'A' : activeB ? (byte) 'B' : 0);
+                return;
+            }
+            App app = App.getInstance();
+            Competition competition = null;
+            try {
+                for (int i = 0; competition == null && i < MAX_ID_ATTEMPTS; i++) {
+                    competition = app.startCompetition(nextCompetitionId.getAndIncrement(),
+                        playerA, playerB, tournament.getTimeControl(),
+                        finished -> onGameFinished(app, tournament, pairing, finished));
+                }
+            } catch (IllegalStateException e) {
+                // 对局数已达上限, 本局无法进行
+                competition = null;
+            }
+            if (competition == null) tournament.onGameFinished(pairing, (byte) 0);
+            else pairing.setCompetitionId(competition.getId());
+        });
+    }
+
+    /**
+     * 记录赛事对局的结果, 然后在玩家 A 的事件循环中结束该对局, 让它离开对局表与双方的对局列表。
+     * 对局已被关闭 (例如玩家离开) 时 closeCompetition 不做任何事
+     */
+    private static void onGameFinished(App app, Tournament tournament, Pairing pairing, Competition competition) {
+        tournament.onGameFinished(pairing, competition.checkWinner());
+        competition.getPlayerA().getChannel().eventLoop().execute(() -> app.closeCompetition(competition));
+    }
+}
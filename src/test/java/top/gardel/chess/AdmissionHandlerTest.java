@@ -0,0 +1,77 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import org.junit.Test;
+
+public class AdmissionHandlerTest {
+
+    /**
+     * 远端为固定 IP 的连接
+     */
+    private static final class RemoteChannel extends EmbeddedChannel {
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), 40000);
+        }
+    }
+
+    @Test
+    public void testConnectionLimit() {
+        AdmissionHandler handler = new AdmissionHandler(1, 0, 0, 1);
+        EmbeddedChannel server = new EmbeddedChannel(handler);
+        EmbeddedChannel first = new EmbeddedChannel();
+        EmbeddedChannel second = new EmbeddedChannel();
+
+        server.writeInbound(first);
+        assertSame(first, server.readInbound());
+        server.writeInbound(second);
+        assertNull(server.readInbound());
+        assertFalse(second.isOpen());
+        assertEquals(1, handler.getRejectedByTotal());
+
+        first.close();
+        assertEquals(0, handler.getConnections());
+        EmbeddedChannel third = new EmbeddedChannel();
+        server.writeInbound(third);
+        assertSame(third, server.readInbound());
+    }
+
+    @Test
+    public void testAcceptRate() {
+        AdmissionHandler handler = new AdmissionHandler(0, 0, 1, 2);
+        EmbeddedChannel server = new EmbeddedChannel(handler);
+        for (int i = 0; i < 3; i++) server.writeInbound(new EmbeddedChannel());
+        assertEquals(1, handler.getRejectedByRate());
+    }
+
+    @Test
+    public void testPerAddressLimitReleasedOnClose() {
+        AdmissionHandler handler = new AdmissionHandler(0, 1, 0, 1);
+        EmbeddedChannel server = new EmbeddedChannel(handler);
+        EmbeddedChannel first = new RemoteChannel();
+        server.writeInbound(first);
+        assertSame(first, server.readInbound());
+        EmbeddedChannel second = new RemoteChannel();
+        server.writeInbound(second);
+        assertFalse(second.isOpen());
+        assertEquals(1, handler.getRejectedByAddress());
+
+        // 计数降为 0 后被删除, 新连接重新计数
+        first.close();
+        for (int i = 0; i < 2; i++) {
+            EmbeddedChannel next = new RemoteChannel();
+            server.writeInbound(next);
+            assertSame(next, server.readInbound());
+            next.close();
+        }
+        assertEquals(1, handler.getRejectedByAddress());
+    }
+}
@@ -1,10 +1,139 @@
 package top.gardel.chess;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.netty.channel.ChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import org.junit.After;
 import org.junit.Test;
+import top.gardel.chess.config.ServerConfig;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.proto.CompetitionFinish;
+import top.gardel.chess.proto.ResponseOrBuilder;
 
 public class AppTest {
+    private final Map<ChannelId, Player> players = new ConcurrentHashMap<>();
+    private final Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+    private final EventLogger eventLogger = new EventLogger(Logger.getLogger("AppTest"), 64);
+    private final App app = new App(players, competitions, ServerConfig.defaults(), null, eventLogger);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        eventLogger.close();
+    }
+
+    private Player player(EmbeddedChannel channel) {
+        Player player = new Player(UUID.randomUUID(), channel);
+        player.setState(Player.State.FREE);
+        players.put(channel.id(), player);
+        return player;
+    }
+
+    private static int countFinish(EmbeddedChannel channel, int id) throws Exception {
+        int count = 0;
+        for (Object msg; (msg = channel.readOutbound()) != null; ) {
+            ResponseOrBuilder response = (ResponseOrBuilder) msg;
+            if (response.getBody().is(CompetitionFinish.class)
+                && response.getBody().unpack(CompetitionFinish.class).getId() == id) count++;
+        }
+        return count;
+    }
+
     @Test
     public void testCompetition() {
 
     }
+
+    @Test
+    public void testCloseCompetitionNotifiesBothPlayers() throws Exception {
+        EmbeddedChannel channelA = new EmbeddedChannel();
+        EmbeddedChannel channelB = new EmbeddedChannel();
+        Player playerA = player(channelA);
+        Player playerB = player(channelB);
+        List<Competition> finished = new ArrayList<>();
+        Competition competition = app.startCompetition(7, playerA, playerB, null, finished::add);
+        assertNotNull(competition);
+
+        assertTrue(app.closeCompetition(competition));
+        assertFalse(competitions.containsKey(7));
+        assertNull(playerA.getCompetition(7));
+        assertNull(playerB.getCompetition(7));
+        assertEquals(1, countFinish(channelA, 7));
+        assertEquals(1, countFinish(channelB, 7));
+        assertEquals(List.of(competition), finished);
+
+        // 重复关闭不再通知
+        assertFalse(app.closeCompetition(competition));
+        assertEquals(0, countFinish(channelA, 7));
+        assertEquals(1, finished.size());
+    }
+
+    @Test
+    public void testCloseCompetitionIgnoresReplacedInstance() {
+        Player stale = player(new EmbeddedChannel());
+        Player current = player(new EmbeddedChannel());
+        Competition old = new Competition(3, stale);
+        Competition replacement = app.startCompetition(3, current, player(new EmbeddedChannel()), null, null);
+        assertNotNull(replacement);
+
+        assertFalse(app.closeCompetition(old));
+        assertSame(replacement, competitions.get(3));
+        assertNotNull(current.getCompetition(3));
+    }
+
+    @Test
+    public void testCloseCompetitionComparesByIdentity() {
+        Player playerA = player(new EmbeddedChannel());
+        Player playerB = player(new EmbeddedChannel());
+        Competition live = app.startCompetition(4, playerA, playerB, null, null);
+        Competition copy = new Competition(4, playerA);
+        copy.setPlayerB(playerB);
+        assertEquals(live, copy);
+
+        assertFalse(app.closeCompetition(copy));
+        assertSame(live, competitions.get(4));
+        assertSame(live, playerA.getCompetition(4));
+    }
+
+    @Test
+    public void testStartCompetitionRespectsCaps() {
+        Properties properties = new Properties();
+        properties.setProperty("competition.max", "1");
+        App limited = new App(players, competitions, new ServerConfig(properties), null, eventLogger);
+        assertNotNull(limited.startCompetition(1, player(new EmbeddedChannel()), player(new EmbeddedChannel()),
+            null, null));
+        try {
+            limited.startCompetition(2, player(new EmbeddedChannel()), player(new EmbeddedChannel()), null, null);
+            fail("competition.max ignored");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, competitions.size());
+        }
+    }
+
+    @Test
+    public void testChannelClosedReleasesCompetitions() {
+        EmbeddedChannel channelA = new EmbeddedChannel();
+        EmbeddedChannel channelB = new EmbeddedChannel();
+        Player playerA = player(channelA);
+        Player playerB = player(channelB);
+        app.startCompetition(1, playerA, playerB, null, null);
+
+        app.onChannelClosed(channelA);
+        assertFalse(players.containsKey(channelA.id()));
+        assertTrue(competitions.isEmpty());
+        assertEquals(0, playerB.getCompetitionCount());
+    }
 }
@@ -0,0 +1,33 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.List;
+import org.junit.Test;
+import top.gardel.chess.proto.Response;
+
+public class BatchCollectorTest {
+
+    @Test
+    public void testCollectsOnlyWhileBatching() {
+        BatchCollector collector = new BatchCollector();
+        EmbeddedChannel channel = new EmbeddedChannel(collector);
+
+        collector.begin();
+        ChannelFuture future = channel.writeAndFlush(Response.newBuilder().setError("a"));
+        channel.writeAndFlush(Response.newBuilder().setError("b").build());
+        List<Response> responses = collector.end();
+
+        assertTrue(future.isSuccess());
+        assertEquals(2, responses.size());
+        assertEquals("a", responses.get(0).getError());
+        assertNull(channel.readOutbound());
+
+        channel.writeAndFlush(Response.newBuilder().setError("c").build());
+        assertEquals("c", ((Response) channel.readOutbound()).getError());
+    }
+}
@@ -0,0 +1,130 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import top.gardel.chess.proto.TimeControl;
+
+public class CompetitionClockTest {
+    private final List<Timeout> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private EmbeddedChannel channelA;
+    private Player playerA;
+    private Player playerB;
+    private Competition competition;
+    private Player expired;
+
+    private final Timer manualTimer = new Timer() {
+        @Override
+        public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+            Timer timer = this;
+            Timeout timeout = new Timeout() {
+                private boolean cancelled;
+
+                @Override
+                public Timer timer() {
+                    return timer;
+                }
+
+                @Override
+                public TimerTask task() {
+                    return task;
+                }
+
+                @Override
+                public boolean isExpired() {
+                    return false;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelled;
+                }
+
+                @Override
+                public boolean cancel() {
+                    cancelled = true;
+                    return true;
+                }
+            };
+            scheduled.add(timeout);
+            delays.add(unit.toMillis(delay));
+            return timeout;
+        }
+
+        @Override
+        public Set<Timeout> stop() {
+            return Collections.emptySet();
+        }
+    };
+
+    @Before
+    public void setUp() {
+        channelA = new EmbeddedChannel();
+        playerA = new Player(UUID.randomUUID(), channelA);
+        playerB = new Player(UUID.randomUUID(), new EmbeddedChannel());
+        competition = new Competition(1, playerA);
+        competition.setClock(new CompetitionClock(competition,
+            TimeControl.newBuilder().setMoveTimeout(1000).setTotal(5000).build(),
+            manualTimer, (c, loser) -> expired = loser));
+    }
+
+    private void fire(Timeout timeout) throws Exception {
+        timeout.task().run(timeout);
+        channelA.runPendingTasks();
+    }
+
+    @Test
+    public void testMoveTimeoutExpires() throws Exception {
+        competition.setPlayerB(playerB);
+        assertEquals(1, scheduled.size());
+        assertEquals(1000L, (long) delays.get(0));
+        fire(scheduled.get(0));
+        assertEquals(playerA, expired);
+    }
+
+    @Test
+    public void testStaleTimeoutIsIgnored() throws Exception {
+        competition.setPlayerB(playerB);
+        competition.putChess(playerA, 1, 1);
+        assertEquals(2, scheduled.size());
+        fire(scheduled.get(0));
+        assertNull(expired);
+        fire(scheduled.get(1));
+        assertEquals(playerB, expired);
+    }
+
+    @Test
+    public void testOpeningMoveByBChargesRunningClock() throws Exception {
+        competition.setPlayerB(playerB);
+        Thread.sleep(50);
+        competition.putChess(playerB, 1, 1);
+        assertEquals(5000L, competition.getClock().getRemaining(playerB));
+        assertTrue(competition.getClock().getRemaining(playerA) <= 4950L);
+        fire(scheduled.get(1));
+        assertEquals(playerA, expired);
+    }
+
+    @Test
+    public void testForfeitDecidesWinner() {
+        competition.setPlayerB(playerB);
+        competition.forfeit(playerB);
+        assertEquals('A', competition.checkWinner());
+        competition.reset();
+        assertEquals(1, competition.getPlayerAWin());
+        assertEquals(0, competition.checkWinner());
+    }
+}
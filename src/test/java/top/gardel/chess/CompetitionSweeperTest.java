@@ -0,0 +1,38 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Test;
+
+public class CompetitionSweeperTest {
+
+    @Test
+    public void testEvictsStaleWaitingCompetitionsInSlices() {
+        Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        for (int i = 1; i <= 3; i++) {
+            Competition competition = new Competition(i, new Player(UUID.randomUUID(), channel));
+            if (i != 2) competition.setLastActiveTime(System.currentTimeMillis() - 60_000);
+            competitions.put(i, competition);
+        }
+        CompetitionSweeper sweeper = new CompetitionSweeper(competitions, null,
+            competition -> competitions.remove(competition.getId(), competition),
+            1000, 2, 30_000, 30_000);
+
+        assertFalse(sweeper.sweepSlice());
+        assertTrue(sweeper.sweepSlice());
+        channel.runPendingTasks();
+
+        assertEquals(1, competitions.size());
+        assertTrue(competitions.containsKey(2));
+        assertEquals(2, sweeper.getEvictedWaiting());
+        assertEquals(0, sweeper.getEvictedFinished());
+        assertEquals(1, sweeper.getPasses());
+    }
+}
@@ -0,0 +1,78 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import top.gardel.chess.proto.PutChess;
+import top.gardel.chess.proto.ResponseOrBuilder;
+
+public class CompetitionTest {
+    private Player playerA;
+    private Player playerB;
+    private Competition competition;
+
+    @Before
+    public void setUp() {
+        playerA = new Player(UUID.randomUUID(), new EmbeddedChannel());
+        playerB = new Player(UUID.randomUUID(), new EmbeddedChannel());
+        competition = new Competition(1, playerA);
+        competition.setPlayerB(playerB);
+    }
+
+    @Test
+    public void testMoveHistory() {
+        assertTrue(competition.putChess(playerA, 1, 2));
+        assertTrue(competition.putChess(playerB, 3, 1));
+        assertEquals(2, competition.getSequence());
+        assertEquals(1 << 16 | 2 << 8 | 'A', competition.getMove(1));
+        assertEquals(3 << 16 | 1 << 8 | 'B', competition.getMove(2));
+        assertTrue(competition.canSyncFrom(0));
+        assertTrue(competition.canSyncFrom(2));
+        assertFalse(competition.canSyncFrom(3));
+    }
+
+    @Test
+    public void testResetInvalidatesHistory() {
+        competition.putChess(playerA, 1, 1);
+        competition.reset();
+        assertEquals(2, competition.getSequence());
+        assertFalse(competition.canSyncFrom(1));
+        assertTrue(competition.canSyncFrom(2));
+        competition.putChess(playerB, 2, 2);
+        assertEquals(2 << 16 | 2 << 8 | 'B', competition.getMove(3));
+    }
+
+    @Test
+    public void testHistoryHoldsWholeGame() {
+        int[][] moves = {{1, 1}, {1, 2}, {1, 3}, {2, 2}, {2, 1}, {2, 3}, {3, 2}, {3, 1}, {3, 3}};
+        for (int i = 0; i < moves.length; i++)
+            assertTrue(competition.putChess(i % 2 == 0 ? playerA : playerB, moves[i][0], moves[i][1]));
+        assertEquals(Competition.HISTORY_SIZE, competition.getSequence());
+        assertTrue(competition.canSyncFrom(0));
+        for (int i = 0; i < moves.length; i++)
+            assertEquals(moves[i][0] << 16 | moves[i][1] << 8 | (i % 2 == 0 ? 'A' : 'B'), competition.getMove(i + 1));
+    }
+
+    @Test
+    public void testFullSyncCarriesSequence() throws Exception {
+        EmbeddedChannel channel = (EmbeddedChannel) playerB.getChannel();
+        playerA.setState(Player.State.FREE);
+        playerB.setState(Player.State.FREE);
+        playerA.joinCompetition(competition);
+        playerB.joinCompetition(competition);
+        competition.putChess(playerA, 1, 1);
+        competition.putChess(playerB, 2, 2);
+        channel.outboundMessages().clear();
+
+        playerB.syncChess(competition);
+        for (int i = 0; i < 2; i++) {
+            ResponseOrBuilder response = channel.readOutbound();
+            assertEquals(2, response.getBody().unpack(PutChess.class).getSeq());
+        }
+    }
+}
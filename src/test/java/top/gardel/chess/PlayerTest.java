@@ -0,0 +1,57 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.UUID;
+import org.junit.Test;
+import top.gardel.chess.proto.AuthInfo;
+
+public class PlayerTest {
+
+    @Test
+    public void testUuidEncodings() {
+        UUID uuid = UUID.randomUUID();
+        Player player = new Player(uuid, new EmbeddedChannel(), true);
+        AuthInfo binary = player.getAuthInfo(true);
+        AuthInfo text = player.getAuthInfo(false);
+        assertEquals(uuid, Player.parseUuid(binary));
+        assertEquals(uuid, Player.parseUuid(text));
+        assertEquals(uuid.toString(), text.getUuid());
+        assertSame(binary, player.getAuthInfo(true));
+        assertNull(Player.parseUuid(AuthInfo.getDefaultInstance()));
+    }
+
+    @Test
+    public void testEqualityFollowsUuid() {
+        UUID uuid = UUID.randomUUID();
+        Player a = new Player(uuid, new EmbeddedChannel());
+        Player b = new Player(uuid, new EmbeddedChannel(), true);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void testMultipleCompetitions() {
+        Player player = new Player(UUID.randomUUID(), new EmbeddedChannel());
+        player.setState(Player.State.FREE);
+        Competition first = new Competition(1, player);
+        Competition second = new Competition(2, player);
+        player.joinCompetition(first);
+        player.joinCompetition(second);
+        assertEquals(Player.State.PLAYING, player.getState());
+        assertEquals(2, player.getCompetitionCount());
+        assertSame(second, player.getCompetition(2));
+
+        player.leaveCompetition(new Competition(1, player));
+        assertSame(first, player.getCompetition(1));
+        player.leaveCompetition(first);
+        player.leaveCompetition(second);
+        assertNull(player.getCompetition(1));
+        assertEquals(Player.State.FREE, player.getState());
+        assertTrue(player.getCompetitions().isEmpty());
+    }
+}
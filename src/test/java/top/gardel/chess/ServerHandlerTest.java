@@ -0,0 +1,111 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.Any;
+import io.netty.channel.ChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import top.gardel.chess.event.AuthEvent;
+import top.gardel.chess.event.EventBus;
+import top.gardel.chess.event.GetStatisticsEvent;
+import top.gardel.chess.proto.AuthInfo;
+import top.gardel.chess.proto.Batch;
+import top.gardel.chess.proto.BatchResponse;
+import top.gardel.chess.proto.GetStatistics;
+import top.gardel.chess.proto.Request;
+import top.gardel.chess.proto.Response;
+import top.gardel.chess.proto.ResponseOrBuilder;
+import top.gardel.chess.proto.Sync;
+
+public class ServerHandlerTest {
+    private final Map<ChannelId, Player> players = new ConcurrentHashMap<>();
+    private final Map<Integer, Competition> competitions = new ConcurrentHashMap<>();
+    private final List<String> handled = new ArrayList<>();
+    private EventBus eventBus;
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        eventBus = new EventBus(1, 16);
+        eventBus.register(GetStatisticsEvent.class, event -> {
+            handled.add("statistics");
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("statistics-1"));
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("statistics-2").build());
+        });
+        eventBus.register(AuthEvent.class, event -> {
+            handled.add("auth");
+            event.getChannel().writeAndFlush(Response.newBuilder().setError("auth").build());
+        });
+        BatchCollector batchCollector = new BatchCollector();
+        channel = new EmbeddedChannel(batchCollector,
+            new ServerHandler(players, competitions, batchCollector, 3, eventBus));
+    }
+
+    @After
+    public void tearDown() {
+        eventBus.close();
+    }
+
+    private void send(Any... operations) {
+        Batch batch = Batch.newBuilder().addAllOperations(List.of(operations)).build();
+        channel.writeInbound(Request.newBuilder().setBody(Any.pack(batch)).build());
+    }
+
+    private BatchResponse readBatchResponse() throws Exception {
+        ResponseOrBuilder response = (ResponseOrBuilder) channel.readOutbound();
+        assertTrue(response.getBody().is(BatchResponse.class));
+        assertNull(channel.readOutbound());
+        return response.getBody().unpack(BatchResponse.class);
+    }
+
+    @Test
+    public void testBatchCollectsResponsesInOrder() throws Exception {
+        send(Any.pack(GetStatistics.getDefaultInstance()),
+            Any.pack(AuthInfo.getDefaultInstance()),
+            Any.pack(Sync.getDefaultInstance()));
+
+        BatchResponse response = readBatchResponse();
+        assertEquals(List.of("statistics", "auth"), handled);
+        assertEquals(3, response.getItemsCount());
+        assertEquals(2, response.getItems(0).getResponsesCount());
+        assertEquals("statistics-1", response.getItems(0).getResponses(0).getError());
+        assertEquals("statistics-2", response.getItems(0).getResponses(1).getError());
+        assertEquals(1, response.getItems(1).getResponsesCount());
+        assertEquals("auth", response.getItems(1).getResponses(0).getError());
+        // 没有监听器的条目记为错误, 不影响其他条目
+        assertEquals(1, response.getItems(2).getResponsesCount());
+        assertTrue(response.getItems(2).getResponses(0).getError().contains("SyncEvent"));
+    }
+
+    @Test
+    public void testNestedBatchIsRejected() throws Exception {
+        send(Any.pack(Batch.newBuilder().addOperations(Any.pack(AuthInfo.getDefaultInstance())).build()),
+            Any.pack(AuthInfo.getDefaultInstance()));
+
+        BatchResponse response = readBatchResponse();
+        assertEquals(List.of("auth"), handled);
+        assertEquals(2, response.getItemsCount());
+        assertEquals("不支持嵌套批量请求", response.getItems(0).getResponses(0).getError());
+        assertEquals("auth", response.getItems(1).getResponses(0).getError());
+    }
+
+    @Test
+    public void testOversizedBatchIsRejected() {
+        Any auth = Any.pack(AuthInfo.getDefaultInstance());
+        send(auth, auth, auth, auth);
+
+        ResponseOrBuilder response = (ResponseOrBuilder) channel.readOutbound();
+        assertEquals("批量请求过大", response.getError());
+        assertNull(channel.readOutbound());
+        assertTrue(handled.isEmpty());
+    }
+}
@@ -0,0 +1,33 @@
+package top.gardel.chess;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ServerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRemoveStaleSocketIgnoresMissingPath() throws IOException {
+        Server.removeStaleSocket(folder.getRoot().toPath().resolve("chess.sock"));
+    }
+
+    @Test
+    public void testRemoveStaleSocketKeepsRegularFile() throws IOException {
+        Path path = folder.newFile("chess.sock").toPath();
+        try {
+            Server.removeStaleSocket(path);
+            fail("regular file accepted");
+        } catch (FileAlreadyExistsException expected) {
+            assertTrue(Files.exists(path));
+        }
+    }
+}
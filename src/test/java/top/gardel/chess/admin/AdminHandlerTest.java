@@ -0,0 +1,106 @@
+package top.gardel.chess.admin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+import top.gardel.chess.Server;
+import top.gardel.chess.config.ServerConfig;
+
+public class AdminHandlerTest {
+    private Server server;
+    private EmbeddedChannel admin;
+
+    /**
+     * 远端为本机回环地址的管理连接
+     */
+    private static final class LoopbackChannel extends EmbeddedChannel {
+        LoopbackChannel(AdminHandler handler) {
+            super(handler);
+        }
+
+        @Override
+        protected SocketAddress remoteAddress0() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), 50000);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        server = new Server(ServerConfig.defaults());
+        admin = new LoopbackChannel(new AdminHandler(server));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        admin.finishAndReleaseAll();
+        server.getEventBus().close();
+        server.getEventLogger().close();
+        server.getTimer().stop();
+    }
+
+    private String command(String line) {
+        admin.writeInbound(line);
+        return admin.readOutbound();
+    }
+
+    @Test
+    public void testRejectsRemoteConnection() {
+        EmbeddedChannel remote = new EmbeddedChannel(new AdminHandler(server));
+        assertFalse(remote.isOpen());
+    }
+
+    @Test
+    public void testListAndShow() {
+        Player player = new Player(UUID.randomUUID(), new EmbeddedChannel());
+        server.getCompetitions().put(5, new Competition(5, player));
+
+        String list = command("list");
+        assertTrue(list, list.startsWith("#5 A=" + player.getUuid() + " B=- "));
+        assertTrue(list, list.endsWith("-- 0-1 of ~1\n"));
+        assertEquals("ERR competition 6 not found\n", command("show 6"));
+        assertTrue(command("show 5").startsWith("#5 "));
+    }
+
+    @Test
+    public void testLoopsCountsUnauthenticatedConnections() {
+        EmbeddedChannel authed = new EmbeddedChannel();
+        EmbeddedChannel anonymous = new EmbeddedChannel();
+        server.getChannels().add(authed);
+        server.getChannels().add(anonymous);
+        server.getPlayers().put(authed.id(), new Player(UUID.randomUUID(), authed));
+
+        String loops = command("loops");
+        assertTrue(loops, loops.endsWith("-- 2 loops, 2 channels, 1 players\n"));
+        assertTrue(loops, loops.contains(" channels=1 players=1 unwritable=0 pending~0B\n"));
+        assertTrue(loops, loops.contains(" channels=1 players=0 unwritable=0 pending~0B\n"));
+
+        anonymous.close();
+        assertTrue(command("loops").endsWith("-- 1 loops, 1 channels, 1 players\n"));
+    }
+
+    @Test
+    public void testStats() {
+        String stats = command("stats");
+        assertTrue(stats, stats.startsWith("competitions=0\nplayers=0\n"));
+        assertTrue(stats, stats.contains("eventbus.dropped=0\n"));
+    }
+
+    @Test
+    public void testUnknownCommandAndQuit() {
+        assertTrue(command("nope").startsWith("list [offset] [limit] | show <id> | loops"));
+        assertEquals("ERR offset must be >= 0\n", command("list -1"));
+        assertEquals("bye\n", command("quit"));
+        assertFalse(admin.isOpen());
+    }
+}
@@ -0,0 +1,126 @@
+package top.gardel.chess.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.protobuf.Any;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.protobuf.ProtobufDecoder;
+import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import org.junit.Test;
+import top.gardel.chess.proto.CompetitionOperation;
+import top.gardel.chess.proto.Request;
+import top.gardel.chess.proto.Response;
+
+public class ProtobufCodecTest {
+
+    private static Response sampleResponse() {
+        return Response.newBuilder()
+            .setBody(Any.pack(CompetitionOperation.newBuilder()
+                .setId(1234)
+                .setOperation(CompetitionOperation.Operation.Join)
+                .build()))
+            .build();
+    }
+
+    @Test
+    public void testEncoderWritesExactFrame() {
+        Response response = sampleResponse();
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtobufFrameEncoder());
+        assertTrue(channel.writeOutbound(response.toBuilder()));
+        ByteBuf buf = channel.readOutbound();
+        try {
+            int bodyLen = response.getSerializedSize();
+            assertEquals(bodyLen, buf.getByte(buf.readerIndex()));
+            assertEquals(bodyLen + 1, buf.readableBytes());
+            assertEquals(buf.readableBytes(), buf.capacity());
+        } finally {
+            buf.release();
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testEncoderIsReadableByStockDecoders() {
+        Response response = sampleResponse();
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtobufFrameEncoder());
+        encoder.writeOutbound(response);
+        ByteBuf frame = encoder.readOutbound();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(
+            new ProtobufVarint32FrameDecoder(),
+            new ProtobufDecoder(Response.getDefaultInstance()));
+        assertTrue(decoder.writeInbound(frame));
+        assertEquals(response, decoder.readInbound());
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testDecoderHandlesSplitFrames() {
+        Request request = Request.newBuilder()
+            .setBody(Any.pack(CompetitionOperation.newBuilder().setId(42).build()))
+            .build();
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtobufFrameEncoder());
+        encoder.writeOutbound(request, request);
+        ByteBuf first = encoder.readOutbound();
+        ByteBuf second = encoder.readOutbound();
+        ByteBuf stream = Unpooled.directBuffer().writeBytes(first).writeBytes(second);
+        first.release();
+        second.release();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtobufFrameDecoder<>(Request.parser()));
+        decoder.writeInbound(stream.readRetainedSlice(1));
+        assertNull(decoder.readInbound());
+        decoder.writeInbound(stream.readRetainedSlice(stream.readableBytes() - 3));
+        assertEquals(request, decoder.readInbound());
+        assertNull(decoder.readInbound());
+        decoder.writeInbound(stream.readRetainedSlice(3));
+        assertEquals(request, decoder.readInbound());
+        stream.release();
+        assertFalse(decoder.finish());
+    }
+
+    @Test
+    public void testDecoderRejectsOversizedFrame() {
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtobufFrameDecoder<>(Request.parser(), 16));
+        ByteBuf buf = Unpooled.buffer().writeByte(0xff).writeByte(0xff).writeByte(0x03);
+        try {
+            decoder.writeInbound(buf);
+            fail("oversized frame accepted");
+        } catch (DecoderException e) {
+            assertTrue(e instanceof TooLongFrameException);
+        }
+        assertFalse(decoder.isOpen());
+    }
+
+    @Test
+    public void testDecoderSkipsCorruptBody() {
+        Request request = Request.newBuilder()
+            .setBody(Any.pack(CompetitionOperation.newBuilder().setId(7).build()))
+            .build();
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtobufFrameEncoder());
+        encoder.writeOutbound(request);
+        ByteBuf valid = encoder.readOutbound();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new ProtobufFrameDecoder<>(Request.parser()));
+        // 字段 1 声明了 5 字节但只有 0 字节
+        ByteBuf corrupt = Unpooled.buffer().writeByte(2).writeByte(0x0a).writeByte(0x05);
+        try {
+            decoder.writeInbound(corrupt);
+            fail("corrupt frame accepted");
+        } catch (DecoderException e) {
+            assertTrue(e instanceof CorruptedFrameException);
+        }
+        assertTrue(decoder.writeInbound(valid));
+        assertEquals(request, decoder.readInbound());
+        assertFalse(decoder.finish());
+    }
+}
@@ -0,0 +1,88 @@
+package top.gardel.chess.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Test;
+import top.gardel.chess.log.EventLogger;
+import top.gardel.chess.log.EventType;
+
+public class ServerConfigTest {
+
+    @Test
+    public void testDefaults() {
+        ServerConfig config = ServerConfig.defaults();
+        assertEquals(5544, config.getPort());
+        assertEquals(1, config.getBossThreads());
+        assertTrue(config.isTcpNoDelay());
+        assertEquals(ServerConfig.Allocator.POOLED, config.getAllocator());
+    }
+
+    @Test
+    public void testCommandLineOverrides() throws IOException {
+        ServerConfig config = ServerConfig.parse(new String[]{
+            "6000", "--worker.threads=8", "--tcp.nodelay", "false", "--allocator=unpooled"});
+        assertEquals(6000, config.getPort());
+        assertEquals(8, config.getWorkerThreads());
+        assertFalse(config.isTcpNoDelay());
+        assertEquals(ServerConfig.Allocator.UNPOOLED, config.getAllocator());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidValues() {
+        Properties properties = new Properties();
+        properties.setProperty("boss.threads", "0");
+        properties.setProperty("so.backlog", "many");
+        new ServerConfig(properties);
+    }
+
+    @Test
+    public void testLogSettingsValidatedUpFront() {
+        Properties properties = new Properties();
+        properties.setProperty("log.join.level", "loud");
+        properties.setProperty("log.leave.sample", "0");
+        try {
+            new ServerConfig(properties);
+            fail("invalid log settings accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("log.join.level"));
+            assertTrue(e.getMessage(), e.getMessage().contains("log.leave.sample"));
+        }
+    }
+
+    @Test
+    public void testRejectsUnknownKeys() {
+        Properties properties = new Properties();
+        properties.setProperty("worker.thread", "8");
+        properties.setProperty("log.nosuch.level", "info");
+        properties.setProperty("log.join.sample", "2");
+        try {
+            new ServerConfig(properties);
+            fail("unknown keys accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("worker.thread"));
+            assertTrue(e.getMessage(), e.getMessage().contains("log.nosuch.level"));
+            assertFalse(e.getMessage(), e.getMessage().contains("log.join.sample"));
+        }
+    }
+
+    @Test
+    public void testApplyToEventLogger() throws InterruptedException {
+        Properties properties = new Properties();
+        properties.setProperty("log.join.level", "fine");
+        EventLogger eventLogger = new EventLogger(Logger.getLogger("ServerConfigTest"), 16);
+        try {
+            new ServerConfig(properties).applyTo(eventLogger);
+            assertEquals(Level.FINE, eventLogger.getLevel(EventType.JOIN));
+            assertEquals(EventType.LEAVE.getDefaultLevel(), eventLogger.getLevel(EventType.LEAVE));
+        } finally {
+            eventLogger.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package top.gardel.chess.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import top.gardel.chess.Player;
+import top.gardel.chess.proto.CompetitionOperation;
+
+public class EventBusTest {
+    private EventBus bus;
+    private EmbeddedChannel channel;
+    private Player player;
+
+    @Before
+    public void setUp() {
+        bus = new EventBus(1, 16);
+        channel = new EmbeddedChannel();
+        player = new Player(UUID.randomUUID(), channel);
+    }
+
+    @After
+    public void tearDown() {
+        bus.close();
+    }
+
+    private CompetitionPutEvent putEvent() {
+        return new CompetitionPutEvent(channel, player, CompetitionOperation.newBuilder()
+            .setOperation(CompetitionOperation.Operation.Put).build());
+    }
+
+    public static class Holder {
+        final List<String> calls = new ArrayList<>();
+
+        @EventHandler(priority = 5)
+        public void onPut(CompetitionPutEvent event) {
+            calls.add("put");
+        }
+
+        @EventHandler(priority = -5)
+        public void onAny(ClientEvent<?> event) {
+            calls.add("any");
+        }
+    }
+
+    @Test
+    public void testPriorityAndSubtypes() throws Exception {
+        Holder holder = new Holder();
+        bus.register(holder);
+        bus.register(CompetitionEvent.class, event -> holder.calls.add("competition"));
+        assertTrue(bus.post(putEvent()));
+        assertEquals(List.of("any", "competition", "put"), holder.calls);
+    }
+
+    @Test
+    public void testRegisterAfterDispatchTableBuilt() throws Exception {
+        List<String> calls = new ArrayList<>();
+        assertFalse(bus.post(putEvent()));
+        EventBus.Registration registration = bus.register(CompetitionPutEvent.class, event -> calls.add("late"));
+        bus.post(putEvent());
+        assertTrue(bus.unregister(registration));
+        assertFalse(bus.post(putEvent()));
+        assertEquals(List.of("late"), calls);
+    }
+
+    @Test
+    public void testCancelStopsLowerPriority() throws Exception {
+        List<String> calls = new ArrayList<>();
+        bus.register(CompetitionPutEvent.class, event -> event.setCancelled(true), -1, false);
+        bus.register(CompetitionPutEvent.class, event -> calls.add("sync"));
+        bus.register(CompetitionPutEvent.class, event -> calls.add("async"), 0, true);
+        bus.post(putEvent());
+        assertTrue(calls.isEmpty());
+        assertEquals(0, bus.getPendingAsync());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSyncExceptionPropagates() throws Exception {
+        bus.register(CompetitionPutEvent.class, event -> {
+            throw new IllegalStateException("rejected");
+        });
+        bus.post(putEvent());
+    }
+
+    @Test
+    public void testAsyncBackpressurePausesChannel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(12);
+        bus.register(CompetitionPutEvent.class, event -> {
+            release.await();
+            done.countDown();
+        }, 0, true);
+        for (int i = 0; i < 12; i++) bus.post(putEvent());
+        assertFalse(channel.config().isAutoRead());
+        assertEquals(1, bus.getPausedChannels());
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bus.getPendingAsync() > 0 && System.nanoTime() < deadline) Thread.sleep(1);
+        // 恢复读取在 channel 的事件循环中执行
+        channel.runPendingTasks();
+        assertTrue(channel.config().isAutoRead());
+        assertEquals(0, bus.getPausedChannels());
+        assertEquals(0, bus.getDroppedCount());
+    }
+
+    @Test
+    public void testClosedChannelLeavesPausedSet() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        bus.register(CompetitionPutEvent.class, event -> release.await(), 0, true);
+        for (int i = 0; i < 10; i++) bus.post(putEvent());
+        assertEquals(1, bus.getPausedChannels());
+        channel.close();
+        assertEquals(0, bus.getPausedChannels());
+        release.countDown();
+    }
+}
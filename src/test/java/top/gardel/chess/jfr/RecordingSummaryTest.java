@@ -0,0 +1,57 @@
+package top.gardel.chess.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import jdk.jfr.Recording;
+import org.junit.Test;
+import top.gardel.chess.Competition;
+import top.gardel.chess.Player;
+
+public class RecordingSummaryTest {
+
+    @Test
+    public void testSummarizesRecording() throws Exception {
+        Path file = Files.createTempFile("chess", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable(PutChessEvent.class).withThreshold(Duration.ZERO);
+                recording.enable(DispatchEvent.class).withThreshold(Duration.ZERO);
+                recording.start();
+                Player playerA = new Player(UUID.randomUUID(), new EmbeddedChannel());
+                Player playerB = new Player(UUID.randomUUID(), new EmbeddedChannel());
+                Competition competition = new Competition(7, playerA);
+                competition.setPlayerB(playerB);
+                competition.putChess(playerA, 1, 1);
+                competition.putChess(playerB, 2, 2);
+                competition.putChess(playerB, 3, 3);
+                DispatchEvent dispatch = new DispatchEvent();
+                dispatch.eventType = "CompetitionPutEvent";
+                dispatch.commit();
+                recording.stop();
+                recording.dump(file);
+            }
+
+            RecordingSummary summary = new RecordingSummary();
+            summary.read(file);
+            assertEquals(3, summary.getStage("PutChess").getCount());
+            assertNotNull(summary.getStage("Dispatch/CompetitionPutEvent"));
+            assertNull(summary.getStage("CheckWinner"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            summary.print(new PrintStream(out, true, "UTF-8"));
+            assertTrue(out.toString("UTF-8").contains("PutChess"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package top.gardel.chess.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.Test;
+
+public class EventLoggerTest {
+
+    private static Logger capturingLogger(List<LogRecord> records) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.ALL);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+
+    @Test
+    public void testEventsAreFormattedInOrder() throws InterruptedException {
+        List<LogRecord> records = new CopyOnWriteArrayList<>();
+        EventLogger eventLogger = new EventLogger(capturingLogger(records), 16);
+        UUID uuid = UUID.randomUUID();
+        eventLogger.log(EventType.CREATE, uuid, 7);
+        eventLogger.log(EventType.DELETE, 7);
+        eventLogger.close();
+        assertEquals(2, records.size());
+        assertEquals("玩家 " + uuid + " 用数字 7 创建了对局", records.get(0).getMessage());
+        assertEquals("对局 7 已删除", records.get(1).getMessage());
+        assertFalse(eventLogger.log(EventType.DELETE, 8));
+    }
+
+    @Test
+    public void testSamplingAndLevels() throws InterruptedException {
+        List<LogRecord> records = new CopyOnWriteArrayList<>();
+        EventLogger eventLogger = new EventLogger(capturingLogger(records), 64);
+        eventLogger.setSampleRate(EventType.JOIN, 4);
+        eventLogger.setLevel(EventType.LEAVE, Level.FINEST);
+        for (int i = 0; i < 8; i++) eventLogger.log(EventType.JOIN, null, i);
+        eventLogger.log(EventType.LEAVE, null, 1);
+        eventLogger.close();
+        assertEquals(3, records.size());
+        assertEquals(Level.FINEST, records.get(2).getLevel());
+        assertEquals(0, eventLogger.getDroppedCount());
+    }
+}
@@ -0,0 +1,165 @@
+package top.gardel.chess.tournament;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.netty.channel.ChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.Test;
+import top.gardel.chess.Player;
+import top.gardel.chess.log.EventLogger;
+
+public class TournamentTest {
+    private final EventLogger eventLogger = new EventLogger(Logger.getLogger("TournamentTest"), 64);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        eventLogger.close();
+    }
+
+    private static List<Player> players(int count) {
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) players.add(new Player(UUID.randomUUID(), new EmbeddedChannel()));
+        return players;
+    }
+
+    private static List<Participant> participants(int count) {
+        List<Participant> participants = new ArrayList<>(count);
+        List<Player> players = players(count);
+        for (int i = 0; i < count; i++) participants.add(new Participant(players.get(i), i));
+        return participants;
+    }
+
+    @Test
+    public void testRoundRobinMeetsEveryone() {
+        List<Participant> participants = participants(5);
+        RoundRobinPairer pairer = new RoundRobinPairer();
+        assertEquals(5, pairer.rounds(5, 0));
+        Set<String> games = new HashSet<>();
+        int byes = 0;
+        for (int round = 1; round <= 5; round++) {
+            for (Pairing pairing : pairer.pair(participants, round)) {
+                if (pairing.isBye()) {
+                    byes++;
+                    continue;
+                }
+                int a = pairing.getPlayerA().getSeed(), b = pairing.getPlayerB().getSeed();
+                assertTrue(games.add(Math.min(a, b) + "-" + Math.max(a, b)));
+                pairing.getPlayerA().recordGame(pairing.getPlayerB(), true, 1);
+                pairing.getPlayerB().recordGame(pairing.getPlayerA(), false, 1);
+            }
+        }
+        assertEquals(10, games.size());
+        assertEquals(5, byes);
+    }
+
+    @Test
+    public void testSwissAvoidsRematches() {
+        List<Participant> participants = participants(64);
+        SwissPairer pairer = new SwissPairer();
+        for (int round = 1; round <= 6; round++) {
+            List<Pairing> pairings = pairer.pair(participants, round);
+            assertEquals(32, pairings.size());
+            for (Pairing pairing : pairings) {
+                assertFalse(pairing.isBye());
+                assertFalse(pairing.getPlayerA().hasPlayed(pairing.getPlayerB()));
+                // 种子靠前者胜
+                boolean aWins = pairing.getPlayerA().getSeed() < pairing.getPlayerB().getSeed();
+                pairing.getPlayerA().recordGame(pairing.getPlayerB(), true, aWins ? 2 : 0);
+                pairing.getPlayerB().recordGame(pairing.getPlayerA(), false, aWins ? 0 : 2);
+            }
+        }
+    }
+
+    @Test
+    public void testSwissPairsWithinScoreGroup() {
+        List<Participant> participants = participants(8);
+        for (int i = 0; i < 4; i++) participants.get(i).recordBye();
+        for (Pairing pairing : new SwissPairer().pair(participants, 2))
+            assertEquals(pairing.getPlayerA().getScore(), pairing.getPlayerB().getScore());
+    }
+
+    @Test
+    public void testSwissByeGoesToLowestRanked() {
+        List<Participant> participants = participants(5);
+        List<Pairing> pairings = new SwissPairer().pair(participants, 1);
+        Pairing bye = pairings.get(0);
+        assertTrue(bye.isBye());
+        assertEquals(4, bye.getPlayerA().getSeed());
+        assertNull(bye.getPlayerB());
+    }
+
+    @Test
+    public void testTournamentRunsAllRounds() {
+        List<Pairing> launched = new ArrayList<>();
+        Tournament tournament = new Tournament(1, TournamentFormat.SWISS, 3, null, players(8),
+            (t, pairing) -> launched.add(pairing), Runnable::run, eventLogger);
+        tournament.start();
+        for (int round = 1; round <= 3; round++) {
+            assertEquals(round, tournament.getRound());
+            assertEquals(4, launched.size());
+            List<Pairing> games = new ArrayList<>(launched);
+            launched.clear();
+            for (Pairing pairing : games) tournament.onGameFinished(pairing, (byte) 'A');
+        }
+        assertEquals(Tournament.State.FINISHED, tournament.getState());
+        List<Participant> standings = tournament.getStandings();
+        assertTrue(standings.get(0).getScore() >= standings.get(1).getScore());
+        int total = 0;
+        for (Participant participant : standings) total += participant.getScore();
+        assertEquals(3 * 4 * 2, total);
+    }
+
+    @Test
+    public void testDuplicateResultIgnored() {
+        List<Pairing> launched = new ArrayList<>();
+        Tournament tournament = new Tournament(1, TournamentFormat.ROUND_ROBIN, 0, null, players(2),
+            (t, pairing) -> launched.add(pairing), Runnable::run, eventLogger);
+        tournament.start();
+        Pairing pairing = launched.get(0);
+        tournament.onGameFinished(pairing, (byte) 'B');
+        tournament.onGameFinished(pairing, (byte) 'A');
+        assertEquals(Tournament.State.FINISHED, tournament.getState());
+        assertEquals(2, pairing.getPlayerB().getScore());
+        assertEquals(0, pairing.getPlayerA().getScore());
+    }
+
+    @Test
+    public void testManagerRebindsReauthenticatedPlayers() {
+        Map<ChannelId, Player> online = new ConcurrentHashMap<>();
+        List<Player> players = players(2);
+        for (Player player : players) {
+            player.setState(Player.State.FREE);
+            online.put(player.getChannel().id(), player);
+        }
+        // 第二名选手在新连接上重新登录
+        Player reauthed = new Player(players.get(1).getUuid(), new EmbeddedChannel());
+        reauthed.setState(Player.State.FREE);
+        online.remove(players.get(1).getChannel().id());
+        online.put(reauthed.getChannel().id(), reauthed);
+
+        TournamentManager manager = new TournamentManager(Runnable::run, online, eventLogger);
+        Tournament tournament = manager.create(TournamentFormat.ROUND_ROBIN, 0, null, players);
+        Pairing pairing = tournament.getPairings().get(0);
+        Participant moved = pairing.getPlayerA().getUuid().equals(reauthed.getUuid())
+            ? pairing.getPlayerA() : pairing.getPlayerB();
+        assertSame(reauthed, moved.getPlayer());
+        assertSame(tournament, manager.get(tournament.getId()));
+
+        tournament.onGameFinished(pairing, (byte) 'N');
+        assertEquals(Tournament.State.FINISHED, tournament.getState());
+        assertNull(manager.get(tournament.getId()));
+    }
+}